@@ -0,0 +1,46 @@
+package com.space.ship.game;
+
+class Camera {
+    private static final float FOLLOW_LERP = 0.2f;
+
+    private float x, y;
+    private int viewWidth, viewHeight;
+    private final float worldWidth, worldHeight;
+
+    public Camera(int viewWidth, int viewHeight, float worldWidth, float worldHeight) {
+        this.viewWidth = viewWidth;
+        this.viewHeight = viewHeight;
+        this.worldWidth = worldWidth;
+        this.worldHeight = worldHeight;
+    }
+
+    public void snapTo(float targetX, float targetY) {
+        x = clampX(targetX - viewWidth / 2f);
+        y = clampY(targetY - viewHeight / 2f);
+    }
+
+    public void follow(float targetX, float targetY) {
+        x += (clampX(targetX - viewWidth / 2f) - x) * FOLLOW_LERP;
+        y += (clampY(targetY - viewHeight / 2f) - y) * FOLLOW_LERP;
+    }
+
+    public boolean isVisible(float objX, float objY, float radius) {
+        return objX + radius >= x && objX - radius <= x + viewWidth
+            && objY + radius >= y && objY - radius <= y + viewHeight;
+    }
+
+    private float clampX(float value) {
+        return Math.max(0, Math.min(worldWidth - viewWidth, value));
+    }
+
+    private float clampY(float value) {
+        return Math.max(0, Math.min(worldHeight - viewHeight, value));
+    }
+
+    public float getX() { return x; }
+    public float getY() { return y; }
+    public int getViewWidth() { return viewWidth; }
+    public int getViewHeight() { return viewHeight; }
+    public float getWorldWidth() { return worldWidth; }
+    public float getWorldHeight() { return worldHeight; }
+}
@@ -0,0 +1,286 @@
+package com.space.ship.game;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * A sector split into square chunks. Chunks around the camera are live {@link WorldChunk}s whose
+ * planets are simulated and drawn; chunks that drift out of range are parked as compact byte
+ * arrays. Generating, parking and restoring chunks runs on a single background thread, so the
+ * parked table is only ever touched by that thread and tasks run in submission order.
+ */
+class ChunkedWorld {
+    static final int CHUNK_SIZE = 1024;
+    private static final int MAX_PLANETS_PER_CHUNK = 3;
+    private static final int PLANET_MARGIN = 120;
+    private static final int BYTES_PER_PLANET = 20;
+    private static final float LOAD_MARGIN = CHUNK_SIZE / 2f;
+    private static final float UNLOAD_MARGIN = CHUNK_SIZE;
+
+    private static final byte STATE_UNLOADED = 0;
+    private static final byte STATE_LOADING = 1;
+    private static final byte STATE_ACTIVE = 2;
+
+    private final int chunksX, chunksY;
+    private final byte[] state;
+    private final WorldChunk[] loaded;
+    private final byte[][] parked;
+    private final List<WorldChunk> activeChunks = new ArrayList<>();
+    private final List<Planet> activePlanets = new ArrayList<>();
+    private final ConcurrentLinkedQueue<WorldChunk> streamedIn = new ConcurrentLinkedQueue<>();
+    private final ExecutorService streamer;
+
+    private int generation;
+    private int level;
+    private int planetHealth;
+    private int totalPlanets;
+    private int remainingPlanets;
+    private boolean activePlanetsDirty;
+
+    public ChunkedWorld(int chunksX, int chunksY) {
+        this.chunksX = chunksX;
+        this.chunksY = chunksY;
+        state = new byte[chunksX * chunksY];
+        loaded = new WorldChunk[chunksX * chunksY];
+        parked = new byte[chunksX * chunksY][];
+        streamer = Executors.newSingleThreadExecutor(new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable r) {
+                Thread thread = new Thread(r, "ChunkStreamer");
+                thread.setPriority(Thread.MIN_PRIORITY);
+                return thread;
+            }
+        });
+    }
+
+    public float getWidth() { return chunksX * (float)CHUNK_SIZE; }
+    public float getHeight() { return chunksY * (float)CHUNK_SIZE; }
+
+    public void startLevel(int level, int planetHealth, Camera camera) {
+        final int levelGeneration = ++generation;
+        this.level = level;
+        this.planetHealth = planetHealth;
+
+        activeChunks.clear();
+        activePlanets.clear();
+        streamedIn.clear();
+        for (int i = 0; i < loaded.length; i++) {
+            loaded[i] = null;
+            state[i] = STATE_UNLOADED;
+        }
+        streamer.execute(new Runnable() {
+            @Override
+            public void run() {
+                for (int i = 0; i < parked.length; i++) parked[i] = null;
+            }
+        });
+
+        totalPlanets = 0;
+        for (int i = 0; i < state.length; i++) {
+            totalPlanets += planetsInChunk(level, i);
+        }
+        remainingPlanets = totalPlanets;
+
+        // The first screen is generated inline so the level never opens empty.
+        int minX = chunkX(camera.getX() - LOAD_MARGIN);
+        int maxX = chunkX(camera.getX() + camera.getViewWidth() + LOAD_MARGIN);
+        int minY = chunkY(camera.getY() - LOAD_MARGIN);
+        int maxY = chunkY(camera.getY() + camera.getViewHeight() + LOAD_MARGIN);
+        for (int cy = minY; cy <= maxY; cy++) {
+            for (int cx = minX; cx <= maxX; cx++) {
+                install(generate(cy * chunksX + cx, levelGeneration, level, planetHealth));
+            }
+        }
+        rebuildActivePlanets();
+    }
+
+    public void update(Camera camera) {
+        WorldChunk chunk;
+        while ((chunk = streamedIn.poll()) != null) {
+            if (chunk.generation == generation && state[chunk.index] == STATE_LOADING) {
+                install(chunk);
+            }
+        }
+
+        float left = camera.getX();
+        float top = camera.getY();
+        float right = left + camera.getViewWidth();
+        float bottom = top + camera.getViewHeight();
+
+        int minX = chunkX(left - LOAD_MARGIN);
+        int maxX = chunkX(right + LOAD_MARGIN);
+        int minY = chunkY(top - LOAD_MARGIN);
+        int maxY = chunkY(bottom + LOAD_MARGIN);
+        for (int cy = minY; cy <= maxY; cy++) {
+            for (int cx = minX; cx <= maxX; cx++) {
+                int index = cy * chunksX + cx;
+                if (state[index] == STATE_UNLOADED) {
+                    state[index] = STATE_LOADING;
+                    requestLoad(index);
+                }
+            }
+        }
+
+        for (int i = activeChunks.size() - 1; i >= 0; i--) {
+            WorldChunk active = activeChunks.get(i);
+            float chunkLeft = (active.index % chunksX) * (float)CHUNK_SIZE;
+            float chunkTop = (active.index / chunksX) * (float)CHUNK_SIZE;
+            if (chunkLeft + CHUNK_SIZE < left - UNLOAD_MARGIN || chunkLeft > right + UNLOAD_MARGIN
+                || chunkTop + CHUNK_SIZE < top - UNLOAD_MARGIN || chunkTop > bottom + UNLOAD_MARGIN) {
+                activeChunks.remove(i);
+                loaded[active.index] = null;
+                state[active.index] = STATE_UNLOADED;
+                requestPark(active);
+                activePlanetsDirty = true;
+            }
+        }
+
+        if (activePlanetsDirty) {
+            rebuildActivePlanets();
+        }
+    }
+
+    public void removePlanet(Planet planet) {
+        WorldChunk chunk = loaded[chunkY(planet.getY()) * chunksX + chunkX(planet.getX())];
+        if (chunk != null && chunk.planets.remove(planet)) {
+            activePlanets.remove(planet);
+            remainingPlanets--;
+        }
+    }
+
+    /** Planets in chunks currently in memory. Callers must cull against the camera before drawing. */
+    public List<Planet> getActivePlanets() {
+        return activePlanets;
+    }
+
+    public int getActiveChunkCount() { return activeChunks.size(); }
+    public int getTotalPlanets() { return totalPlanets; }
+    public int getRemainingPlanets() { return remainingPlanets; }
+
+    public void shutdown() {
+        streamer.shutdownNow();
+    }
+
+    private void install(WorldChunk chunk) {
+        loaded[chunk.index] = chunk;
+        state[chunk.index] = STATE_ACTIVE;
+        activeChunks.add(chunk);
+        activePlanetsDirty = true;
+    }
+
+    private void rebuildActivePlanets() {
+        activePlanets.clear();
+        for (int i = 0; i < activeChunks.size(); i++) {
+            activePlanets.addAll(activeChunks.get(i).planets);
+        }
+        activePlanetsDirty = false;
+    }
+
+    private void requestLoad(final int index) {
+        final int levelGeneration = generation;
+        final int chunkLevel = level;
+        final int health = planetHealth;
+        streamer.execute(new Runnable() {
+            @Override
+            public void run() {
+                byte[] data = parked[index];
+                WorldChunk chunk = data != null
+                    ? restore(index, levelGeneration, data)
+                    : generate(index, levelGeneration, chunkLevel, health);
+                parked[index] = null;
+                streamedIn.add(chunk);
+            }
+        });
+    }
+
+    private void requestPark(final WorldChunk chunk) {
+        final int levelGeneration = generation;
+        streamer.execute(new Runnable() {
+            @Override
+            public void run() {
+                if (chunk.generation == levelGeneration) {
+                    parked[chunk.index] = serialize(chunk);
+                }
+            }
+        });
+    }
+
+    private WorldChunk generate(int index, int levelGeneration, int level, int planetHealth) {
+        WorldChunk chunk = new WorldChunk(index, levelGeneration);
+        int count = planetsInChunk(level, index);
+        Random random = new Random(seed(level, index));
+        float originX = (index % chunksX) * (float)CHUNK_SIZE;
+        float originY = (index / chunksX) * (float)CHUNK_SIZE;
+        float span = CHUNK_SIZE - PLANET_MARGIN * 2;
+        for (int i = 0; i < count; i++) {
+            float x = originX + PLANET_MARGIN + random.nextFloat() * span;
+            float y = originY + PLANET_MARGIN + random.nextFloat() * span;
+            chunk.planets.add(new Planet(x, y, planetHealth, planetHealth));
+        }
+        return chunk;
+    }
+
+    private static byte[] serialize(WorldChunk chunk) {
+        ByteBuffer buffer = ByteBuffer.allocate(4 + chunk.planets.size() * BYTES_PER_PLANET);
+        buffer.putInt(chunk.planets.size());
+        for (Planet planet : chunk.planets) {
+            buffer.putInt(planet.getId());
+            buffer.putFloat(planet.getX());
+            buffer.putFloat(planet.getY());
+            buffer.putInt(planet.getHealth());
+            buffer.putInt(planet.getMaxHealth());
+        }
+        return buffer.array();
+    }
+
+    private static WorldChunk restore(int index, int levelGeneration, byte[] data) {
+        WorldChunk chunk = new WorldChunk(index, levelGeneration);
+        ByteBuffer buffer = ByteBuffer.wrap(data);
+        int count = buffer.getInt();
+        for (int i = 0; i < count; i++) {
+            int id = buffer.getInt();
+            float x = buffer.getFloat();
+            float y = buffer.getFloat();
+            int health = buffer.getInt();
+            int maxHealth = buffer.getInt();
+            chunk.planets.add(new Planet(id, x, y, health, maxHealth));
+        }
+        return chunk;
+    }
+
+    private static int planetsInChunk(int level, int index) {
+        return (int)((seed(level, index) >>> 33) % (MAX_PLANETS_PER_CHUNK + 1));
+    }
+
+    private static long seed(int level, int index) {
+        long h = level * 0x9E3779B97F4A7C15L + index;
+        h = (h ^ (h >>> 30)) * 0xBF58476D1CE4E5B9L;
+        h = (h ^ (h >>> 27)) * 0x94D049BB133111EBL;
+        return h ^ (h >>> 31);
+    }
+
+    private int chunkX(float worldX) {
+        return Math.max(0, Math.min(chunksX - 1, (int)(worldX / CHUNK_SIZE)));
+    }
+
+    private int chunkY(float worldY) {
+        return Math.max(0, Math.min(chunksY - 1, (int)(worldY / CHUNK_SIZE)));
+    }
+}
+
+class WorldChunk {
+    final int index;
+    final int generation;
+    final List<Planet> planets = new ArrayList<>();
+
+    WorldChunk(int index, int generation) {
+        this.index = index;
+        this.generation = generation;
+    }
+}
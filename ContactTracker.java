@@ -0,0 +1,98 @@
+package com.space.ship.game;
+
+/**
+ * Remembers which objects the ship overlapped on previous ticks so a sustained overlap is reported
+ * once as an enter, then as stays, and once as an exit when it ends. Stays are promoted to
+ * {@link #REPEAT} every {@code repeatInterval} ticks for effects that should pulse during contact.
+ */
+class ContactTracker {
+    static final int ENTER = 1;
+    static final int STAY = 2;
+    static final int REPEAT = 3;
+
+    interface Listener {
+        void onContactExit(GameObject other);
+    }
+
+    private GameObject[] others = new GameObject[8];
+    private int[] lastTriggerTick = new int[8];
+    private boolean[] touched = new boolean[8];
+    private int size;
+    private int tick;
+    private int repeatInterval;
+
+    public ContactTracker(int repeatInterval) {
+        this.repeatInterval = repeatInterval;
+    }
+
+    public void setRepeatInterval(int ticks) {
+        repeatInterval = ticks;
+    }
+
+    public void beginTick() {
+        tick++;
+        for (int i = 0; i < size; i++) {
+            touched[i] = false;
+        }
+    }
+
+    /** Reports an overlap with {@code other} this tick and returns its contact phase. */
+    public int touch(GameObject other) {
+        for (int i = 0; i < size; i++) {
+            if (others[i] == other) {
+                touched[i] = true;
+                if (tick - lastTriggerTick[i] >= repeatInterval) {
+                    lastTriggerTick[i] = tick;
+                    return REPEAT;
+                }
+                return STAY;
+            }
+        }
+        if (size == others.length) {
+            grow();
+        }
+        others[size] = other;
+        lastTriggerTick[size] = tick;
+        touched[size] = true;
+        size++;
+        return ENTER;
+    }
+
+    public void endTick(Listener listener) {
+        for (int i = size - 1; i >= 0; i--) {
+            if (!touched[i]) {
+                GameObject other = others[i];
+                size--;
+                others[i] = others[size];
+                lastTriggerTick[i] = lastTriggerTick[size];
+                touched[i] = touched[size];
+                others[size] = null;
+                listener.onContactExit(other);
+            }
+        }
+    }
+
+    public void clear() {
+        for (int i = 0; i < size; i++) {
+            others[i] = null;
+        }
+        size = 0;
+    }
+
+    public int getActiveContacts() {
+        return size;
+    }
+
+    private void grow() {
+        int capacity = others.length * 2;
+        GameObject[] newOthers = new GameObject[capacity];
+        int[] newTicks = new int[capacity];
+        boolean[] newTouched = new boolean[capacity];
+        System.arraycopy(others, 0, newOthers, 0, size);
+        System.arraycopy(lastTriggerTick, 0, newTicks, 0, size);
+        System.arraycopy(touched, 0, newTouched, 0, size);
+        others = newOthers;
+        lastTriggerTick = newTicks;
+        touched = newTouched;
+    }
+}
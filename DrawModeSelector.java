@@ -0,0 +1,75 @@
+package com.space.ship.game;
+
+import java.util.Arrays;
+
+/**
+ * Chooses between drawing layers directly onto the frame and recording them into Pictures on the
+ * worker pool, from measured draw time. Each trial samples both modes back to back and keeps the
+ * layered path only if its median beats direct drawing by a clear margin; the choice is held for
+ * a while and then re-tried, since scene load and resolution scale shift the balance.
+ */
+class DrawModeSelector {
+    static final int MODE_DIRECT = 0;
+    static final int MODE_LAYERED = 1;
+
+    private static final int PHASE_DIRECT = 0;
+    private static final int PHASE_LAYERED = 1;
+    private static final int PHASE_HOLD = 2;
+    // Frames right after a switch re-record every layer and warm caches, so they are not sampled.
+    private static final int SETTLE_FRAMES = 10;
+    private static final int SAMPLE_FRAMES = 60;
+    private static final int HOLD_FRAMES = 1800;
+    private static final float REQUIRED_GAIN = 0.1f;
+
+    private final long[] samples = new long[SAMPLE_FRAMES];
+    private int mode = MODE_DIRECT;
+    private int phase = PHASE_DIRECT;
+    private int frames;
+    private long directNanos, layeredNanos;
+
+    /** Feeds one frame's draw time in the current mode; returns true when a trial has just decided. */
+    public boolean onFrame(long drawNanos) {
+        frames++;
+        if (phase == PHASE_HOLD) {
+            if (frames >= HOLD_FRAMES) {
+                startPhase(PHASE_DIRECT, MODE_DIRECT);
+            }
+            return false;
+        }
+        if (frames <= SETTLE_FRAMES) {
+            return false;
+        }
+        samples[frames - SETTLE_FRAMES - 1] = drawNanos;
+        if (frames < SETTLE_FRAMES + SAMPLE_FRAMES) {
+            return false;
+        }
+
+        Arrays.sort(samples);
+        long median = samples[SAMPLE_FRAMES / 2];
+        if (phase == PHASE_DIRECT) {
+            directNanos = median;
+            startPhase(PHASE_LAYERED, MODE_LAYERED);
+            return false;
+        }
+        layeredNanos = median;
+        startPhase(PHASE_HOLD,
+            layeredNanos < directNanos * (1 - REQUIRED_GAIN) ? MODE_LAYERED : MODE_DIRECT);
+        return true;
+    }
+
+    public int getMode() {
+        return mode;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s (median draw: direct %.2f ms, layered %.2f ms)",
+            mode == MODE_LAYERED ? "layered" : "direct", directNanos / 1e6f, layeredNanos / 1e6f);
+    }
+
+    private void startPhase(int phase, int mode) {
+        this.phase = phase;
+        this.mode = mode;
+        frames = 0;
+    }
+}
@@ -0,0 +1,186 @@
+package com.space.ship.game;
+
+import android.graphics.Canvas;
+import android.graphics.Color;
+import android.graphics.Paint;
+
+/**
+ * Estimates how many pixels each render pass touches per frame. Shapes are reported analytically
+ * (circles and rects as they are drawn, clipped to the screen) rather than read back from the
+ * GPU, so the numbers are cheap and deterministic but ignore antialiasing fringes and text glyphs.
+ * Overdraw is the total covered area divided by the screen area. With the heatmap enabled, shapes
+ * are also rasterised into a coarse grid of per-cell layer counts.
+ */
+class FillRateMeter {
+    static final int PASS_BACKGROUND = 0;
+    static final int PASS_NEBULAS = 1;
+    static final int PASS_STARS = 2;
+    static final int PASS_PARTICLES = 3;
+    static final int PASS_PLANETS = 4;
+    static final int PASS_ENEMIES = 5;
+    static final int PASS_SHIP = 6;
+    static final int PASS_HUD = 7;
+    static final int PASS_COUNT = 8;
+
+    static final int MODE_OFF = 0;
+    static final int MODE_ESTIMATE = 1;
+    static final int MODE_HEATMAP = 2;
+
+    private static final String[] PASS_NAMES = {
+        "background", "nebulas", "stars", "particles", "planets", "enemies", "ship", "hud"
+    };
+    private static final int CELL_SIZE = 40;
+    private static final float SMOOTHING = 0.1f;
+    // Android's debug overdraw palette, indexed by layers - 1: a single layer is untinted, then
+    // 1x overdraw blue, 2x green, 3x pink, 4x and above red.
+    private static final int[] HEAT_COLORS = {
+        Color.TRANSPARENT,
+        Color.argb(96, 0, 0, 255),
+        Color.argb(96, 0, 255, 0),
+        Color.argb(96, 255, 128, 255),
+        Color.argb(128, 255, 0, 0)
+    };
+
+    private final int width, height;
+    private final int columns, rows;
+    private final float[] heat;
+    private final float[] frameArea = new float[PASS_COUNT];
+    private final float[] averageArea = new float[PASS_COUNT];
+    private int mode = MODE_OFF;
+    private int pass;
+    private float originX, originY;
+    private float overdraw;
+
+    public FillRateMeter(int width, int height) {
+        this.width = width;
+        this.height = height;
+        columns = (width + CELL_SIZE - 1) / CELL_SIZE;
+        rows = (height + CELL_SIZE - 1) / CELL_SIZE;
+        heat = new float[columns * rows];
+    }
+
+    public void setMode(int mode) {
+        this.mode = mode;
+    }
+
+    public boolean isEnabled() {
+        return mode != MODE_OFF;
+    }
+
+    public boolean isHeatmapEnabled() {
+        return mode == MODE_HEATMAP;
+    }
+
+    public void beginFrame() {
+        for (int i = 0; i < PASS_COUNT; i++) {
+            frameArea[i] = 0;
+        }
+        if (mode == MODE_HEATMAP) {
+            for (int i = 0; i < heat.length; i++) {
+                heat[i] = 0;
+            }
+        }
+    }
+
+    /** Subsequent shapes count towards {@code pass} and are offset by {@code -origin}. */
+    public void beginPass(int pass, float originX, float originY) {
+        this.pass = pass;
+        this.originX = originX;
+        this.originY = originY;
+    }
+
+    public void circle(float x, float y, float radius) {
+        x -= originX;
+        y -= originY;
+        float left = Math.max(0, x - radius), right = Math.min(width, x + radius);
+        float top = Math.max(0, y - radius), bottom = Math.min(height, y + radius);
+        if (left >= right || top >= bottom) {
+            return;
+        }
+        float side = 2 * radius;
+        // Scale the disc area by how much of its bounding box is on screen.
+        frameArea[pass] += (float)Math.PI * radius * radius * ((right - left) * (bottom - top)) / (side * side);
+
+        if (mode == MODE_HEATMAP) {
+            float radiusSquared = radius * radius;
+            for (int row = (int)top / CELL_SIZE; row <= Math.min(rows - 1, (int)bottom / CELL_SIZE); row++) {
+                float dy = row * CELL_SIZE + CELL_SIZE / 2f - y;
+                for (int column = (int)left / CELL_SIZE; column <= Math.min(columns - 1, (int)right / CELL_SIZE); column++) {
+                    float dx = column * CELL_SIZE + CELL_SIZE / 2f - x;
+                    if (dx * dx + dy * dy <= radiusSquared) {
+                        heat[row * columns + column] += 1;
+                    }
+                }
+            }
+        }
+    }
+
+    public void rect(float left, float top, float right, float bottom) {
+        left = Math.max(0, left - originX);
+        right = Math.min(width, right - originX);
+        top = Math.max(0, top - originY);
+        bottom = Math.min(height, bottom - originY);
+        if (left >= right || top >= bottom) {
+            return;
+        }
+        frameArea[pass] += (right - left) * (bottom - top);
+
+        if (mode == MODE_HEATMAP) {
+            float cellArea = CELL_SIZE * CELL_SIZE;
+            for (int row = (int)top / CELL_SIZE; row <= Math.min(rows - 1, (int)bottom / CELL_SIZE); row++) {
+                float cellTop = row * CELL_SIZE;
+                float coveredY = Math.min(bottom, cellTop + CELL_SIZE) - Math.max(top, cellTop);
+                if (coveredY <= 0) continue;
+                for (int column = (int)left / CELL_SIZE; column <= Math.min(columns - 1, (int)right / CELL_SIZE); column++) {
+                    float cellLeft = column * CELL_SIZE;
+                    float coveredX = Math.min(right, cellLeft + CELL_SIZE) - Math.max(left, cellLeft);
+                    if (coveredX > 0) {
+                        heat[row * columns + column] += coveredX * coveredY / cellArea;
+                    }
+                }
+            }
+        }
+    }
+
+    public void endFrame() {
+        float total = 0;
+        for (int i = 0; i < PASS_COUNT; i++) {
+            averageArea[i] += (frameArea[i] - averageArea[i]) * SMOOTHING;
+            total += frameArea[i];
+        }
+        overdraw += (total / ((float)width * height) - overdraw) * SMOOTHING;
+    }
+
+    public void drawHeatmap(Canvas canvas, Paint paint) {
+        for (int row = 0; row < rows; row++) {
+            for (int column = 0; column < columns; column++) {
+                int layers = Math.round(heat[row * columns + column]);
+                if (layers <= 1) continue;
+                paint.setColor(HEAT_COLORS[Math.min(layers - 1, HEAT_COLORS.length - 1)]);
+                canvas.drawRect(column * CELL_SIZE, row * CELL_SIZE,
+                    (column + 1) * CELL_SIZE, (row + 1) * CELL_SIZE, paint);
+            }
+        }
+    }
+
+    /** Smoothed pixels covered by {@code pass}, in virtual-screen pixels. */
+    public float getPassArea(int pass) {
+        return averageArea[pass];
+    }
+
+    /** Smoothed total covered area divided by the screen area. */
+    public float getOverdraw() {
+        return overdraw;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder builder = new StringBuilder();
+        builder.append(String.format("overdraw %.2fx", overdraw));
+        float screenArea = (float)width * height;
+        for (int i = 0; i < PASS_COUNT; i++) {
+            builder.append(String.format(", %s %.2f", PASS_NAMES[i], averageArea[i] / screenArea));
+        }
+        return builder.toString();
+    }
+}
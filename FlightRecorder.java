@@ -0,0 +1,215 @@
+package com.space.ship.game;
+
+import android.util.Log;
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Always-on ring buffer of the last few seconds of frame timings, entity counts and game events.
+ * Recording only writes into preallocated arrays; dumps are copied and written on a background thread.
+ * Use {@link FlightRecorderDecoder} to read the dumped files offline.
+ */
+class FlightRecorder {
+    static final int MAGIC = 0x464C5452; // "FLTR"
+    static final int VERSION = 1;
+
+    static final int REASON_MANUAL = 0;
+    static final int REASON_JANK = 1;
+
+    static final int EVENT_SHIP_DESTROYED = GameEventQueue.SHIP_DESTROYED;
+    static final int EVENT_PLANET_DESTROYED = GameEventQueue.PLANET_DESTROYED;
+    static final int EVENT_LEVEL_CLEARED = GameEventQueue.LEVEL_CLEARED;
+
+    private static final String TAG = "FlightRecorder";
+    private static final int FRAME_CAPACITY = 512;
+    private static final int EVENT_CAPACITY = 256;
+    private static final int MAX_DUMP_FILES = 5;
+    private static final long DUMP_COOLDOWN_NANOS = 5_000_000_000L;
+
+    private final int[] frameTick = new int[FRAME_CAPACITY];
+    private final int[] frameMicros = new int[FRAME_CAPACITY];
+    private final int[] updateMicros = new int[FRAME_CAPACITY];
+    private final int[] drawMicros = new int[FRAME_CAPACITY];
+    private final short[] planetCount = new short[FRAME_CAPACITY];
+    private final short[] enemyCount = new short[FRAME_CAPACITY];
+    private final int[] particleCount = new int[FRAME_CAPACITY];
+    private int frameHead;
+    private int frameSize;
+
+    private final int[] eventTick = new int[EVENT_CAPACITY];
+    private final byte[] eventType = new byte[EVENT_CAPACITY];
+    private final float[] eventX = new float[EVENT_CAPACITY];
+    private final float[] eventY = new float[EVENT_CAPACITY];
+    private int eventHead;
+    private int eventSize;
+
+    private final File dumpDir;
+    private final ExecutorService writer = Executors.newSingleThreadExecutor();
+    private long jankThresholdNanos = 50_000_000L;
+    private long lastDumpNanos;
+    private int currentTick;
+
+    public FlightRecorder(File storageDir) {
+        this.dumpDir = new File(storageDir, "flight");
+    }
+
+    public void setJankThresholdMillis(long millis) {
+        jankThresholdNanos = millis * 1_000_000L;
+    }
+
+    public synchronized void recordFrame(int tick, long frameNanos, long updateNanos, long drawNanos,
+                                         int planets, int enemies, int particles) {
+        int i = frameHead;
+        frameTick[i] = tick;
+        frameMicros[i] = (int)(frameNanos / 1000);
+        updateMicros[i] = (int)(updateNanos / 1000);
+        drawMicros[i] = (int)(drawNanos / 1000);
+        planetCount[i] = (short)Math.min(planets, Short.MAX_VALUE);
+        enemyCount[i] = (short)Math.min(enemies, Short.MAX_VALUE);
+        particleCount[i] = particles;
+        frameHead = (i + 1) % FRAME_CAPACITY;
+        if (frameSize < FRAME_CAPACITY) frameSize++;
+        currentTick = tick;
+
+        if (frameNanos > jankThresholdNanos) {
+            long now = System.nanoTime();
+            if (lastDumpNanos == 0 || now - lastDumpNanos > DUMP_COOLDOWN_NANOS) {
+                lastDumpNanos = now;
+                dump(REASON_JANK);
+            }
+        }
+    }
+
+    public synchronized void recordEvent(int type, float x, float y) {
+        int i = eventHead;
+        eventTick[i] = currentTick;
+        eventType[i] = (byte)type;
+        eventX[i] = x;
+        eventY[i] = y;
+        eventHead = (i + 1) % EVENT_CAPACITY;
+        if (eventSize < EVENT_CAPACITY) eventSize++;
+    }
+
+    public synchronized void dump(final int reason) {
+        final Snapshot snapshot = new Snapshot();
+        snapshot.reason = reason;
+        snapshot.wallClockMillis = System.currentTimeMillis();
+        snapshot.frames = frameSize;
+        snapshot.frameTick = unroll(frameTick, frameHead, frameSize);
+        snapshot.frameMicros = unroll(frameMicros, frameHead, frameSize);
+        snapshot.updateMicros = unroll(updateMicros, frameHead, frameSize);
+        snapshot.drawMicros = unroll(drawMicros, frameHead, frameSize);
+        snapshot.planetCount = unroll(planetCount, frameHead, frameSize);
+        snapshot.enemyCount = unroll(enemyCount, frameHead, frameSize);
+        snapshot.particleCount = unroll(particleCount, frameHead, frameSize);
+        snapshot.events = eventSize;
+        snapshot.eventTick = unroll(eventTick, eventHead, eventSize);
+        snapshot.eventType = unroll(eventType, eventHead, eventSize);
+        snapshot.eventX = unroll(eventX, eventHead, eventSize);
+        snapshot.eventY = unroll(eventY, eventHead, eventSize);
+
+        writer.execute(new Runnable() {
+            @Override
+            public void run() {
+                write(snapshot);
+            }
+        });
+    }
+
+    public void shutdown() {
+        writer.shutdown();
+    }
+
+    private void write(Snapshot s) {
+        if (!dumpDir.isDirectory() && !dumpDir.mkdirs()) {
+            Log.w(TAG, "Cannot create " + dumpDir);
+            return;
+        }
+        File file = new File(dumpDir, "flight-" + s.wallClockMillis + ".bin");
+        try (DataOutputStream out = new DataOutputStream(
+                new BufferedOutputStream(new FileOutputStream(file)))) {
+            out.writeInt(MAGIC);
+            out.writeShort(VERSION);
+            out.writeByte(s.reason);
+            out.writeLong(s.wallClockMillis);
+
+            out.writeInt(s.frames);
+            for (int i = 0; i < s.frames; i++) {
+                out.writeInt(s.frameTick[i]);
+                out.writeInt(s.frameMicros[i]);
+                out.writeInt(s.updateMicros[i]);
+                out.writeInt(s.drawMicros[i]);
+                out.writeShort(s.planetCount[i]);
+                out.writeShort(s.enemyCount[i]);
+                out.writeInt(s.particleCount[i]);
+            }
+
+            out.writeInt(s.events);
+            for (int i = 0; i < s.events; i++) {
+                out.writeInt(s.eventTick[i]);
+                out.writeByte(s.eventType[i]);
+                out.writeFloat(s.eventX[i]);
+                out.writeFloat(s.eventY[i]);
+            }
+            Log.i(TAG, "Dumped " + s.frames + " frames to " + file);
+        } catch (IOException e) {
+            Log.w(TAG, "Flight recorder dump failed", e);
+        }
+        pruneOldDumps();
+    }
+
+    private void pruneOldDumps() {
+        File[] files = dumpDir.listFiles();
+        if (files == null || files.length <= MAX_DUMP_FILES) return;
+        Arrays.sort(files);
+        for (int i = 0; i < files.length - MAX_DUMP_FILES; i++) {
+            files[i].delete();
+        }
+    }
+
+    private static int[] unroll(int[] ring, int head, int size) {
+        int[] out = new int[size];
+        int start = (head - size + ring.length) % ring.length;
+        for (int i = 0; i < size; i++) out[i] = ring[(start + i) % ring.length];
+        return out;
+    }
+
+    private static short[] unroll(short[] ring, int head, int size) {
+        short[] out = new short[size];
+        int start = (head - size + ring.length) % ring.length;
+        for (int i = 0; i < size; i++) out[i] = ring[(start + i) % ring.length];
+        return out;
+    }
+
+    private static byte[] unroll(byte[] ring, int head, int size) {
+        byte[] out = new byte[size];
+        int start = (head - size + ring.length) % ring.length;
+        for (int i = 0; i < size; i++) out[i] = ring[(start + i) % ring.length];
+        return out;
+    }
+
+    private static float[] unroll(float[] ring, int head, int size) {
+        float[] out = new float[size];
+        int start = (head - size + ring.length) % ring.length;
+        for (int i = 0; i < size; i++) out[i] = ring[(start + i) % ring.length];
+        return out;
+    }
+
+    private static class Snapshot {
+        int reason;
+        long wallClockMillis;
+        int frames;
+        int[] frameTick, frameMicros, updateMicros, drawMicros, particleCount;
+        short[] planetCount, enemyCount;
+        int events;
+        int[] eventTick;
+        byte[] eventType;
+        float[] eventX, eventY;
+    }
+}
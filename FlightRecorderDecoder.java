@@ -0,0 +1,82 @@
+package com.space.ship.game;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+
+/**
+ * Offline reader for flight recorder dumps. Pull the files from the device with
+ * {@code adb shell run-as com.space.ship.game cat files/flight/<name>.bin > dump.bin}, then run
+ * {@code java com.space.ship.game.FlightRecorderDecoder dump.bin}.
+ */
+public final class FlightRecorderDecoder {
+    private FlightRecorderDecoder() {
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length == 0) {
+            System.err.println("usage: FlightRecorderDecoder <dump.bin>...");
+            System.exit(2);
+        }
+        for (String path : args) {
+            try (DataInputStream in = new DataInputStream(
+                    new BufferedInputStream(new FileInputStream(path)))) {
+                decode(in, System.out);
+            }
+        }
+    }
+
+    static void decode(DataInputStream in, PrintStream out) throws IOException {
+        if (in.readInt() != FlightRecorder.MAGIC) {
+            throw new IOException("Not a flight recorder dump");
+        }
+        int version = in.readShort();
+        if (version != FlightRecorder.VERSION) {
+            throw new IOException("Unsupported dump version " + version);
+        }
+        int reason = in.readByte();
+        long wallClock = in.readLong();
+        out.println("# reason=" + (reason == FlightRecorder.REASON_JANK ? "jank" : "manual")
+            + " time=" + wallClock);
+
+        int frames = in.readInt();
+        out.println("# frames=" + frames);
+        out.println("tick,frame_us,update_us,draw_us,planets,enemies,particles");
+        long worst = 0;
+        for (int i = 0; i < frames; i++) {
+            int tick = in.readInt();
+            int frame = in.readInt();
+            int update = in.readInt();
+            int draw = in.readInt();
+            int planets = in.readShort();
+            int enemies = in.readShort();
+            int particles = in.readInt();
+            worst = Math.max(worst, frame);
+            out.println(tick + "," + frame + "," + update + "," + draw + ","
+                + planets + "," + enemies + "," + particles);
+        }
+
+        int events = in.readInt();
+        out.println("# events=" + events);
+        out.println("tick,event,x,y");
+        for (int i = 0; i < events; i++) {
+            int tick = in.readInt();
+            int type = in.readByte();
+            float x = in.readFloat();
+            float y = in.readFloat();
+            out.println(tick + "," + eventName(type) + "," + x + "," + y);
+        }
+        out.println("# worst_frame_us=" + worst);
+    }
+
+    private static String eventName(int type) {
+        switch (type) {
+            case FlightRecorder.EVENT_SHIP_DESTROYED: return "ship_destroyed";
+            case FlightRecorder.EVENT_PLANET_DESTROYED: return "planet_destroyed";
+            case FlightRecorder.EVENT_LEVEL_CLEARED: return "level_cleared";
+            default: return "unknown_" + type;
+        }
+    }
+}
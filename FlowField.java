@@ -0,0 +1,139 @@
+package com.space.ship.game;
+
+import java.util.List;
+
+/**
+ * Coarse steering grid for large enemy waves, rebuilt once per tick around the camera. Each cell
+ * holds a unit pursuit direction toward the ship and a push away from crowded neighbouring cells;
+ * enemies sharing a cell are also pushed apart from its centre. {@link #sample} blends the three
+ * with one cell lookup, capping the push below the pursuit so a crowd never turns an enemy back.
+ */
+class FlowField {
+    private static final float CELL_SIZE = 96f;
+    private static final float MARGIN = 256f;
+    private static final float SEPARATION_WEIGHT = 0.15f;
+    private static final float CROWDING_WEIGHT = 0.1f;
+    private static final float MAX_CROWDING = 0.6f;
+    private static final float MAX_PUSH = 0.75f;
+    // Enemies sitting on a cell centre split along one of eight directions picked by id.
+    private static final float[] SPLIT_X = {1, 0.7071f, 0, -0.7071f, -1, -0.7071f, 0, 0.7071f};
+    private static final float[] SPLIT_Y = {0, 0.7071f, 1, 0.7071f, 0, -0.7071f, -1, -0.7071f};
+
+    private final int columns, rows;
+    private final float[] goalX, goalY;
+    private final float[] pushX, pushY;
+    private final float[] crowding;
+    private final int[] density;
+    private float originX, originY;
+
+    public FlowField(int viewWidth, int viewHeight) {
+        columns = (int)Math.ceil((viewWidth + MARGIN * 2) / CELL_SIZE);
+        rows = (int)Math.ceil((viewHeight + MARGIN * 2) / CELL_SIZE);
+        goalX = new float[columns * rows];
+        goalY = new float[columns * rows];
+        pushX = new float[columns * rows];
+        pushY = new float[columns * rows];
+        crowding = new float[columns * rows];
+        density = new int[columns * rows];
+    }
+
+    public void build(SpaceShip ship, List<Enemy> enemies, Camera camera) {
+        originX = camera.getX() - MARGIN;
+        originY = camera.getY() - MARGIN;
+
+        for (int i = 0; i < density.length; i++) {
+            density[i] = 0;
+        }
+        for (int i = 0; i < enemies.size(); i++) {
+            Enemy enemy = enemies.get(i);
+            int cell = cellAt(enemy.getX(), enemy.getY());
+            if (cell >= 0) {
+                density[cell]++;
+            }
+        }
+
+        float shipX = ship.getX();
+        float shipY = ship.getY();
+        for (int row = 0; row < rows; row++) {
+            float centerY = originY + (row + 0.5f) * CELL_SIZE;
+            for (int column = 0; column < columns; column++) {
+                int cell = row * columns + column;
+                float centerX = originX + (column + 0.5f) * CELL_SIZE;
+                float dx = shipX - centerX;
+                float dy = shipY - centerY;
+                float distance = (float)Math.sqrt(dx * dx + dy * dy);
+                if (distance > 0) {
+                    dx /= distance;
+                    dy /= distance;
+                }
+                goalX[cell] = dx;
+                goalY[cell] = dy;
+
+                int left = column > 0 ? density[cell - 1] : 0;
+                int right = column < columns - 1 ? density[cell + 1] : 0;
+                int up = row > 0 ? density[cell - columns] : 0;
+                int down = row < rows - 1 ? density[cell + columns] : 0;
+                pushX[cell] = (left - right) * SEPARATION_WEIGHT;
+                pushY[cell] = (up - down) * SEPARATION_WEIGHT;
+                crowding[cell] = Math.min(MAX_CROWDING, Math.max(0, density[cell] - 1) * CROWDING_WEIGHT);
+            }
+        }
+    }
+
+    /** Cell index for a world position, or -1 outside the field. */
+    private int cellAt(float x, float y) {
+        int column = (int)Math.floor((x - originX) / CELL_SIZE);
+        int row = (int)Math.floor((y - originY) / CELL_SIZE);
+        if (column < 0 || column >= columns || row < 0 || row >= rows) {
+            return -1;
+        }
+        return row * columns + column;
+    }
+
+    /**
+     * Writes the unit steering direction for enemy {@code id} at (x, y) into {@code out[0..1]}.
+     * Returns false, leaving {@code out} untouched, outside the field.
+     */
+    public boolean sample(float x, float y, int id, float[] out) {
+        float localX = (x - originX) / CELL_SIZE;
+        float localY = (y - originY) / CELL_SIZE;
+        int column = (int)Math.floor(localX);
+        int row = (int)Math.floor(localY);
+        if (column < 0 || column >= columns || row < 0 || row >= rows) {
+            return false;
+        }
+        int cell = row * columns + column;
+
+        float sideX = pushX[cell];
+        float sideY = pushY[cell];
+        float crowd = crowding[cell];
+        if (crowd > 0) {
+            // Offset from the cell centre in half-cells, so the push peaks at the cell's edges.
+            float offsetX = (localX - column - 0.5f) * 2;
+            float offsetY = (localY - row - 0.5f) * 2;
+            if (offsetX * offsetX + offsetY * offsetY < 1e-4f) {
+                offsetX = SPLIT_X[id & 7];
+                offsetY = SPLIT_Y[id & 7];
+            }
+            sideX += crowd * offsetX;
+            sideY += crowd * offsetY;
+        }
+        float push = sideX * sideX + sideY * sideY;
+        if (push > MAX_PUSH * MAX_PUSH) {
+            float scale = MAX_PUSH / (float)Math.sqrt(push);
+            sideX *= scale;
+            sideY *= scale;
+        }
+
+        float flowX = goalX[cell] + sideX;
+        float flowY = goalY[cell] + sideY;
+        float length = (float)Math.sqrt(flowX * flowX + flowY * flowY);
+        if (length > 0) {
+            flowX /= length;
+            flowY /= length;
+        }
+        out[0] = flowX;
+        out[1] = flowY;
+        return true;
+    }
+}
@@ -1,62 +1,344 @@
 package com.space.ship.game;
 
 import android.content.Context;
+import android.graphics.Bitmap;
 import android.graphics.Canvas;
 import android.graphics.Color;
 import android.graphics.Paint;
+import android.graphics.Picture;
 import android.graphics.RadialGradient;
+import android.graphics.RectF;
 import android.graphics.Shader;
+import android.util.Log;
+import android.util.SparseArray;
 import android.view.SurfaceHolder;
 import android.view.SurfaceView;
 import android.view.MotionEvent;
+import java.net.SocketException;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Random;
 
 public class GameEngine extends SurfaceView implements Runnable {
+    private static final String TAG = "GameEngine";
+    private static final int SECTOR_CHUNKS = 48;
+    private static final int PLANETS_PER_LEVEL = 20;
+    private static final float TICK_SECONDS = 1f / 60f;
+    private static final int CONTACT_REPEAT_TICKS = 15;
+    private static final int ENEMY_CAP = 10;
+    private static final int SWARM_LEVEL_INTERVAL = 5;
+    private static final int SWARM_ENEMY_CAP = 1000;
+    private static final int SWARM_SPAWNS_PER_TICK = 8;
+    private static final int VIRTUAL_HEIGHT = 1080;
+    private static final float MIN_RENDER_SCALE = 0.5f;
+    private static final float MAX_RENDER_SCALE = 1.0f;
+    private static final long FRAME_BUDGET_NANOS = 16_000_000L;
+    private static final String BACKGROUND_KEY = "background.gradient";
+    private static final int BACKGROUND_DOWNSAMPLE = 2;
+    private static final int MAX_INPUT_BACKLOG = 2;
+    private static final float INTERPOLATION_DELAY_TICKS = 2f;
+    private static final float MAX_RENDER_TICK_DRIFT = 8f;
+    private static final int NET_STATS_INTERVAL_TICKS = 300;
+    private static final int FILL_STATS_INTERVAL_TICKS = 300;
+    private static final int MAX_LAYER_WORKERS = 4;
+    
     private Thread gameThread;
     private volatile boolean playing;
+    // Set once the startup thread has built the world; everything below it is only read after that.
+    private volatile boolean ready;
+    private final Object startupLock = new Object();
+    private boolean destroyed;
+    private NetHost pendingNetHost;
+    private NetClient pendingNetClient;
+    private StartupMetrics startupMetrics;
+    private Paint loadingPaint;
     private SurfaceHolder surfaceHolder;
     private Paint paint;
+    // Gameplay and HUD work in a fixed-height virtual screen; the surface is scaled to fit.
     private int screenWidth, screenHeight;
+    private int displayWidth, displayHeight;
+    private ResolutionScaler resolutionScaler;
     
     private SpaceShip spaceShip;
     private VirtualJoystick joystick;
-    private List<Planet> planets;
+    private Camera camera;
+    private ChunkedWorld world;
     private List<Enemy> enemies;
+    private FlowField flowField;
+    private boolean swarmLevel;
     private List<Star> stars;
     private GameState gameState;
     private ParticleSystem particleSystem;
+    private RenderCacheManager renderCache;
+    private LayerRecorder layers;
+    private DrawModeSelector drawMode;
+    private int backgroundLayer, particleLayer, planetLayer, enemyLayer, shipLayer;
+    private int joystickLayer, hudLayer;
+    // Inputs of the last joystick and HUD recordings; those layers are replayed while these hold.
+    private float recordedForceX, recordedForceY;
+    private boolean recordedJoystickActive;
+    private int hudLevel = -1, hudDestroyed, hudRemaining, hudScore;
+    private long hudCoins;
+    private boolean measuringFrame;
+    private Paint bitmapPaint;
+    private RectF screenRect;
+    private FillRateMeter fillMeter;
     private Random random;
+    private FlightRecorder flightRecorder;
+    private GameEventQueue events;
+    private ContactTracker contacts;
+    private final ContactTracker.Listener contactExitListener = other ->
+        events.post(GameEventQueue.CONTACT_EXIT, other.getX(), other.getY(), 0);
+    
+    // Host side: the client's ship is simulated here from its queued inputs.
+    private NetHost netHost;
+    private SpaceShip wingman;
+    private VirtualJoystick remoteJoystick;
+    private ClientInput clientInput;
+    private ContactTracker wingmanContacts;
+    private int wingmanInputSeq;
+    
+    // Client side: the local ship is predicted, everything else is interpolated host state.
+    private NetClient netClient;
+    private SpaceShip hostShip;
+    private WorldSnapshot latestSnapshot;
+    private WorldSnapshot renderSnapshot;
+    private SparseArray<Planet> remotePlanets;
+    private SparseArray<Enemy> remoteEnemies;
+    private List<Planet> remotePlanetList;
+    private ShipPredictor predictor;
+    private int reconciledTick;
+    private float renderTick;
     
     private long lastTime;
+    private long lastFrameNanos;
+    private long lastEventClearNanos;
+    private boolean frameTimingInterrupted;
+    private int tick;
 
     public GameEngine(Context context, int screenX, int screenY) {
         super(context);
-        this.screenWidth = screenX;
-        this.screenHeight = screenY;
+        this.displayWidth = screenX;
+        this.displayHeight = screenY;
+        this.screenHeight = VIRTUAL_HEIGHT;
+        this.screenWidth = Math.round(VIRTUAL_HEIGHT * (float)screenX / screenY);
+        startupMetrics = new StartupMetrics();
         
-        initializeEngine();
+        initializeSurface();
+        new Thread(new Runnable() {
+            @Override
+            public void run() {
+                initializeWorld();
+            }
+        }, "GameStartup").start();
     }
 
-    private void initializeEngine() {
+    // Only what the UI thread and the loading screen need; everything else is built off-thread.
+    private void initializeSurface() {
         surfaceHolder = getHolder();
-        paint = new Paint();
-        paint.setAntiAlias(true);
-        random = new Random();
+        resolutionScaler = new ResolutionScaler(MIN_RENDER_SCALE, MAX_RENDER_SCALE, FRAME_BUDGET_NANOS);
+        applyRenderScale();
+        loadingPaint = new Paint();
+        loadingPaint.setAntiAlias(true);
+        loadingPaint.setColor(Color.WHITE);
+        loadingPaint.setTextSize(48);
+        loadingPaint.setTextAlign(Paint.Align.CENTER);
+        renderCache = RenderCacheManager.forDevice(getContext());
+        renderCache.addWarmer(cache -> {
+            if (!cache.contains(BACKGROUND_KEY)) {
+                cache.put(BACKGROUND_KEY, createBackground());
+            }
+        });
+        fillMeter = new FillRateMeter(screenWidth, screenHeight);
+        events = new GameEventQueue(64);
+        contacts = new ContactTracker(CONTACT_REPEAT_TICKS);
+        
+        setFocusable(true);
+    }
+
+    private void initializeWorld() {
+        GameTrace.begin(GameTrace.STARTUP);
+        try {
+            GameTrace.begin(GameTrace.STARTUP_WORLD);
+            try {
+                paint = new Paint();
+                paint.setAntiAlias(true);
+                bitmapPaint = new Paint(Paint.FILTER_BITMAP_FLAG);
+                screenRect = new RectF(0, 0, screenWidth, screenHeight);
+                random = new Random();
         
-        spaceShip = new SpaceShip(screenWidth / 2, screenHeight / 2, screenWidth, screenHeight);
-        joystick = new VirtualJoystick(screenWidth / 2, screenHeight - 200, 120);
-        planets = new ArrayList<>();
-        enemies = new ArrayList<>();
-        stars = new ArrayList<>();
-        gameState = new GameState();
-        particleSystem = new ParticleSystem();
+                world = new ChunkedWorld(SECTOR_CHUNKS, SECTOR_CHUNKS);
+                camera = new Camera(screenWidth, screenHeight, world.getWidth(), world.getHeight());
+                spaceShip = new SpaceShip(world.getWidth() / 2, world.getHeight() / 2,
+                    world.getWidth(), world.getHeight());
+                camera.snapTo(spaceShip.getX(), spaceShip.getY());
+                joystick = new VirtualJoystick(screenWidth / 2, screenHeight - 200, 120);
+                enemies = new ArrayList<>();
+                flowField = new FlowField(screenWidth, screenHeight);
+                stars = new ArrayList<>();
+                gameState = new GameState();
+                particleSystem = new ParticleSystem(renderCache);
+                particleSystem.setBurstMode(true);
+                particleSystem.setDeferTextureRelease(true);
+                flightRecorder = new FlightRecorder(getContext().getFilesDir());
+                createLayers();
         
-        createStars();
-        startNewLevel();
+                createStars();
+                startNewLevel();
+            } finally {
+                GameTrace.end();
+            }
         
-        setFocusable(true);
+            GameTrace.begin(GameTrace.STARTUP_CACHES);
+            try {
+                renderCache.warmNow();
+            } finally {
+                GameTrace.end();
+            }
+        
+            GameTrace.begin(GameTrace.STARTUP_WARMUP);
+            try {
+                warmUpHotPaths();
+            } finally {
+                GameTrace.end();
+            }
+        } finally {
+            GameTrace.end();
+        }
+        
+        synchronized (startupLock) {
+            if (destroyed) {
+                flightRecorder.shutdown();
+                world.shutdown();
+                layers.shutdown();
+                return;
+            }
+            attachPendingSession();
+            startupMetrics.onReady();
+            ready = true;
+        }
+    }
+
+    // World layers are recorded in screen space with the camera applied inside the recording, so
+    // nothing drawn depends on the Picture's bounds at playback.
+    private void createLayers() {
+        layers = new LayerRecorder(screenWidth, screenHeight,
+            Math.min(MAX_LAYER_WORKERS, Runtime.getRuntime().availableProcessors() - 1));
+        drawMode = new DrawModeSelector();
+        backgroundLayer = layers.add(new LayerRecorder.Layer() {
+            @Override
+            void record(Canvas canvas, Paint paint, ShaderCache shaders) {
+                GameTrace.begin(GameTrace.DRAW_BACKGROUND);
+                try {
+                    drawCinematicBackground(canvas, paint);
+                } finally {
+                    GameTrace.end();
+                }
+            }
+            
+            @Override
+            void onComposited() {
+                renderCache.release(BACKGROUND_KEY);
+            }
+        });
+        particleLayer = layers.add(new LayerRecorder.Layer() {
+            @Override
+            void record(Canvas canvas, Paint paint, ShaderCache shaders) {
+                GameTrace.begin(GameTrace.DRAW_PARTICLES);
+                try {
+                    canvas.translate(-camera.getX(), -camera.getY());
+                    if (measuringFrame) {
+                        fillMeter.beginPass(FillRateMeter.PASS_PARTICLES, camera.getX(), camera.getY());
+                    }
+                    particleSystem.draw(canvas, camera, measuringFrame ? fillMeter : null);
+                } finally {
+                    GameTrace.end();
+                }
+            }
+            
+            @Override
+            void onComposited() {
+                particleSystem.releaseTexture();
+            }
+        });
+        planetLayer = layers.add(new LayerRecorder.Layer() {
+            @Override
+            void record(Canvas canvas, Paint paint, ShaderCache shaders) {
+                GameTrace.begin(GameTrace.DRAW_PLANETS);
+                try {
+                    canvas.translate(-camera.getX(), -camera.getY());
+                    List<Planet> planets = netClient != null ? remotePlanetList : world.getActivePlanets();
+                    for (int i = 0; i < planets.size(); i++) {
+                        Planet planet = planets.get(i);
+                        if (camera.isVisible(planet.getX(), planet.getY(), planet.getRadius() + 15)) {
+                            planet.draw(canvas, paint, shaders);
+                        }
+                    }
+                } finally {
+                    GameTrace.end();
+                }
+            }
+        });
+        enemyLayer = layers.add(new LayerRecorder.Layer() {
+            @Override
+            void record(Canvas canvas, Paint paint, ShaderCache shaders) {
+                GameTrace.begin(GameTrace.DRAW_ENEMIES);
+                try {
+                    canvas.translate(-camera.getX(), -camera.getY());
+                    for (int i = 0; i < enemies.size(); i++) {
+                        Enemy enemy = enemies.get(i);
+                        if (camera.isVisible(enemy.getX(), enemy.getY(), enemy.getRadius() + 25)) {
+                            enemy.draw(canvas, paint, shaders);
+                        }
+                    }
+                } finally {
+                    GameTrace.end();
+                }
+            }
+        });
+        shipLayer = layers.add(new LayerRecorder.Layer() {
+            @Override
+            void record(Canvas canvas, Paint paint, ShaderCache shaders) {
+                GameTrace.begin(GameTrace.DRAW_SHIP);
+                try {
+                    canvas.translate(-camera.getX(), -camera.getY());
+                    spaceShip.draw(canvas, paint, shaders);
+                    SpaceShip partner = netClient != null ? hostShip : netHost != null ? wingman : null;
+                    if (partner != null && camera.isVisible(partner.getX(), partner.getY(), 50)) {
+                        partner.draw(canvas, paint, shaders);
+                    }
+                } finally {
+                    GameTrace.end();
+                }
+            }
+        });
+        joystickLayer = layers.add(new LayerRecorder.Layer() {
+            @Override
+            void record(Canvas canvas, Paint paint, ShaderCache shaders) {
+                joystick.draw(canvas, paint);
+            }
+        });
+        hudLayer = layers.add(new LayerRecorder.Layer() {
+            @Override
+            void record(Canvas canvas, Paint paint, ShaderCache shaders) {
+                GameTrace.begin(GameTrace.DRAW_HUD);
+                try {
+                    drawHUD(canvas, paint);
+                } finally {
+                    GameTrace.end();
+                }
+            }
+        });
+    }
+
+    // Records one full frame into a throwaway Picture and steps the steering code once, so class
+    // loading, gradient creation and the first JIT compilations happen here instead of in the
+    // first visible frames. Nothing here touches the surface.
+    private void warmUpHotPaths() {
+        Picture picture = new Picture();
+        renderScene(picture.beginRecording(screenWidth, screenHeight));
+        picture.endRecording();
+        flowField.build(spaceShip, enemies, camera);
     }
 
     private void createStars() {
@@ -65,123 +347,747 @@ public class GameEngine extends SurfaceView implements Runnable {
                 random.nextInt(screenWidth),
                 random.nextInt(screenHeight),
                 random.nextFloat() * 3 + 1,
-                random.nextFloat() * 0.5f + 0.1f
+                random.nextFloat() * 0.5f + 0.1f,
+                screenWidth, screenHeight
             ));
         }
     }
 
     private void startNewLevel() {
-        planets.clear();
         enemies.clear();
         
-        for (int i = 0; i < 20; i++) {
-            float x = random.nextFloat() * (screenWidth - 200) + 100;
-            float y = random.nextFloat() * (screenHeight - 400) + 100;
-            int health = gameState.getCurrentLevel() * 10 + 50;
-            planets.add(new Planet(x, y, health, screenWidth, screenHeight));
-        }
+        int health = gameState.getCurrentLevel() * 10 + 50;
+        world.startLevel(gameState.getCurrentLevel(), health, camera);
+        swarmLevel = gameState.getCurrentLevel() % SWARM_LEVEL_INTERVAL == 0;
         
-        for (int i = 0; i < 10; i++) {
-            enemies.add(new Enemy(screenWidth, screenHeight, gameState.getCurrentLevel()));
+        for (int i = 0; i < ENEMY_CAP; i++) {
+            enemies.add(new Enemy(camera, gameState.getCurrentLevel()));
         }
     }
 
     @Override
     public void run() {
+        lastFrameNanos = 0;
+        lastEventClearNanos = 0;
         while (playing) {
-            update();
-            draw();
+            if (!ready) {
+                drawLoadingFrame();
+                controlFPS();
+                continue;
+            }
+            attachPendingSession();
+            long frameStart = System.nanoTime();
+            tick++;
+            if (netClient != null) {
+                updateClient();
+            } else {
+                update();
+            }
+            long updateEnd = System.nanoTime();
+            boolean posted = draw();
+            long drawEnd = System.nanoTime();
+            if (posted && !startupMetrics.hasFullQualityFrame()
+                    && resolutionScaler.getScale() >= MAX_RENDER_SCALE) {
+                startupMetrics.onFullQualityFrame();
+            }
+            
+            if (lastFrameNanos != 0) {
+                flightRecorder.recordFrame(tick, frameStart - lastFrameNanos,
+                    updateEnd - frameStart, drawEnd - updateEnd,
+                    world.getActivePlanets().size(), enemies.size(), particleSystem.getParticleCount());
+            }
+            // A frame that slept through a reset says nothing about render cost.
+            if (!frameTimingInterrupted && resolutionScaler.onFrame(drawEnd - frameStart)) {
+                applyRenderScale();
+            }
+            // Same draw time the flight recorder keeps; measured frames record serially, so they are left out.
+            if (posted && !frameTimingInterrupted && !measuringFrame && drawMode.onFrame(drawEnd - updateEnd)) {
+                Log.i(TAG, "Draw mode: " + drawMode);
+            }
+            lastFrameNanos = frameTimingInterrupted ? 0 : frameStart;
+            frameTimingInterrupted = false;
             controlFPS();
         }
     }
 
     private void update() {
+        GameTrace.begin(GameTrace.UPDATE);
+        try {
+            updateWorld();
+            dispatchEvents();
+            
+            GameTrace.begin(GameTrace.UPDATE_PARTICLES);
+            try {
+                particleSystem.update();
+            } finally {
+                GameTrace.end();
+            }
+            
+            if (netHost != null) {
+                WorldSnapshot snapshot = netHost.beginSnapshot(tick);
+                captureSnapshot(snapshot);
+                netHost.send(snapshot);
+                logNetStats(netHost.getStats());
+            }
+        } finally {
+            GameTrace.end();
+        }
+    }
+
+    private void updateWorld() {
         spaceShip.update(joystick);
+        boolean hasWingman = netHost != null && netHost.hasClient();
+        if (hasWingman) {
+            advanceWingman();
+        }
+        camera.follow(spaceShip.getX(), spaceShip.getY());
+        world.update(camera);
         
-        for (Enemy enemy : enemies) {
-            enemy.update(spaceShip);
+        GameTrace.begin(GameTrace.UPDATE_COLLISION);
+        try {
+            boolean shipDestroyed = false;
+            boolean wingmanDestroyed = false;
+            if (swarmLevel) {
+                flowField.build(spaceShip, enemies, camera);
+            }
+            float pulse = (float)Math.sin(System.currentTimeMillis() * 0.01) * 0.2f + 0.8f;
+            for (int i = 0; i < enemies.size(); i++) {
+                Enemy enemy = enemies.get(i);
+                if (swarmLevel) {
+                    enemy.steer(flowField, spaceShip, pulse);
+                } else {
+                    enemy.update(spaceShip);
+                }
+                
+                if (!shipDestroyed && spaceShip.checkCollision(enemy)) {
+                    events.post(GameEventQueue.SHIP_DESTROYED, spaceShip.getX(), spaceShip.getY(),
+                        WorldSnapshot.HOST_SHIP_ID);
+                    shipDestroyed = true;
+                }
+                if (hasWingman && !wingmanDestroyed && wingman.checkCollision(enemy)) {
+                    events.post(GameEventQueue.SHIP_DESTROYED, wingman.getX(), wingman.getY(),
+                        WorldSnapshot.CLIENT_SHIP_ID);
+                    wingmanDestroyed = true;
+                }
+            }
             
-            if (spaceShip.checkCollision(enemy)) {
-                particleSystem.createExplosion(spaceShip.getX(), spaceShip.getY(), 50, Color.RED);
-                gameState.shipDestroyed();
-                resetGame();
-                return;
+            contacts.beginTick();
+            if (!shipDestroyed) {
+                collidePlanets(spaceShip, contacts);
+            }
+            contacts.endTick(contactExitListener);
+            
+            if (hasWingman) {
+                wingmanContacts.beginTick();
+                if (!wingmanDestroyed) {
+                    collidePlanets(wingman, wingmanContacts);
+                }
+                wingmanContacts.endTick(contactExitListener);
             }
+        } finally {
+            GameTrace.end();
         }
         
+        for (Star star : stars) {
+            star.update(spaceShip.getVelocityX(), spaceShip.getVelocityY());
+        }
+        
+        if (gameState.getDestroyedPlanets() + events.countOf(GameEventQueue.PLANET_DESTROYED)
+                >= PLANETS_PER_LEVEL) {
+            events.post(GameEventQueue.LEVEL_CLEARED, spaceShip.getX(), spaceShip.getY(),
+                gameState.getCurrentLevel());
+        }
+        
+        enemies.removeIf(enemy -> enemy.isOutOfView(camera));
+        if (swarmLevel) {
+            for (int i = 0; i < SWARM_SPAWNS_PER_TICK && enemies.size() < SWARM_ENEMY_CAP; i++) {
+                enemies.add(new Enemy(camera, gameState.getCurrentLevel()));
+            }
+        } else if (enemies.size() < ENEMY_CAP && random.nextInt(100) < 2) {
+            enemies.add(new Enemy(camera, gameState.getCurrentLevel()));
+        }
+    }
+
+    private void collidePlanets(SpaceShip ship, ContactTracker tracker) {
+        List<Planet> planets = world.getActivePlanets();
         for (int i = planets.size() - 1; i >= 0; i--) {
             Planet planet = planets.get(i);
-            if (spaceShip.checkCollision(planet)) {
+            if (!ship.checkCollision(planet)) {
+                continue;
+            }
+            
+            int phase = tracker.touch(planet);
+            if (phase == ContactTracker.ENTER) {
+                events.post(GameEventQueue.CONTACT_ENTER, planet.getX(), planet.getY(), 0);
+            }
+            if (phase == ContactTracker.ENTER || phase == ContactTracker.REPEAT) {
                 planet.takeDamage(25);
-                particleSystem.createImpact(planet.getX(), planet.getY(), 20, Color.CYAN);
+                events.post(GameEventQueue.PLANET_HIT, planet.getX(), planet.getY(), 25);
                 
                 if (planet.isDestroyed()) {
-                    planets.remove(i);
-                    gameState.planetDestroyed();
-                    particleSystem.createExplosion(planet.getX(), planet.getY(), 80, Color.YELLOW);
+                    world.removePlanet(planet);
+                    events.post(GameEventQueue.PLANET_DESTROYED, planet.getX(), planet.getY(), 0);
                 }
             }
         }
+    }
+
+    // One client input per tick in sequence order, as the client predicts it. With none queued the
+    // wingman waits rather than reusing a stale input; a backlog is drained down to MAX_INPUT_BACKLOG.
+    private void advanceWingman() {
+        int steps = Math.max(1, netHost.getQueuedInputCount() - MAX_INPUT_BACKLOG);
+        for (int i = 0; i < steps && netHost.pollClientInput(clientInput); i++) {
+            remoteJoystick.setForce(clientInput.active, clientInput.forceX, clientInput.forceY);
+            wingman.update(remoteJoystick);
+            wingmanInputSeq = clientInput.seq;
+        }
+    }
+
+    private void captureSnapshot(WorldSnapshot snapshot) {
+        snapshot.particleTick = particleSystem.getTick();
+        snapshot.level = gameState.getCurrentLevel();
+        snapshot.score = gameState.getScore();
+        snapshot.destroyedPlanets = gameState.getDestroyedPlanets();
+        snapshot.coins = gameState.getCoins();
         
-        particleSystem.update();
+        captureShip(snapshot.ships, WorldSnapshot.HOST_SHIP_ID, spaceShip, 0);
+        captureShip(snapshot.ships, WorldSnapshot.CLIENT_SHIP_ID, wingman, wingmanInputSeq);
         
-        for (Star star : stars) {
-            star.update(spaceShip.getVelocityX(), spaceShip.getVelocityY());
+        for (int i = 0; i < enemies.size(); i++) {
+            Enemy enemy = enemies.get(i);
+            int row = snapshot.enemies.add(enemy.getId());
+            snapshot.enemies.set(row, WorldSnapshot.ENEMY_X, WorldSnapshot.quantizePosition(enemy.getX()));
+            snapshot.enemies.set(row, WorldSnapshot.ENEMY_Y, WorldSnapshot.quantizePosition(enemy.getY()));
         }
+        snapshot.enemies.sortById();
         
-        if (planets.isEmpty()) {
-            gameState.nextLevel();
-            startNewLevel();
+        List<Planet> planets = world.getActivePlanets();
+        for (int i = 0; i < planets.size(); i++) {
+            Planet planet = planets.get(i);
+            int row = snapshot.planets.add(planet.getId());
+            snapshot.planets.set(row, WorldSnapshot.PLANET_X, WorldSnapshot.quantizePosition(planet.getX()));
+            snapshot.planets.set(row, WorldSnapshot.PLANET_Y, WorldSnapshot.quantizePosition(planet.getY()));
+            snapshot.planets.set(row, WorldSnapshot.PLANET_HEALTH, planet.getHealth());
+            snapshot.planets.set(row, WorldSnapshot.PLANET_MAX_HEALTH, planet.getMaxHealth());
         }
+        snapshot.planets.sortById();
         
-        enemies.removeIf(enemy -> enemy.isOutOfScreen());
-        if (enemies.size() < 10 && random.nextInt(100) < 2) {
-            enemies.add(new Enemy(screenWidth, screenHeight, gameState.getCurrentLevel()));
-        }
+        particleSystem.captureBursts(snapshot.bursts);
     }
 
-    private void draw() {
-        if (surfaceHolder.getSurface().isValid()) {
-            Canvas canvas = surfaceHolder.lockCanvas();
-            
-            drawCinematicBackground(canvas);
-            particleSystem.draw(canvas, paint);
-            
-            for (Planet planet : planets) {
-                planet.draw(canvas, paint);
+    private void captureShip(EntityTable ships, int id, SpaceShip ship, int shipInputSeq) {
+        int row = ships.add(id);
+        ships.set(row, WorldSnapshot.SHIP_X, WorldSnapshot.quantizePosition(ship.getX()));
+        ships.set(row, WorldSnapshot.SHIP_Y, WorldSnapshot.quantizePosition(ship.getY()));
+        ships.set(row, WorldSnapshot.SHIP_VX, WorldSnapshot.quantizeVelocity(ship.getVelocityX()));
+        ships.set(row, WorldSnapshot.SHIP_VY, WorldSnapshot.quantizeVelocity(ship.getVelocityY()));
+        ships.set(row, WorldSnapshot.SHIP_HEALTH, ship.getHealth());
+        ships.set(row, WorldSnapshot.SHIP_INPUT_SEQ, shipInputSeq);
+    }
+
+    private void updateClient() {
+        GameTrace.begin(GameTrace.UPDATE);
+        try {
+            if (netClient.copyLatest(latestSnapshot) && latestSnapshot.tick != reconciledTick) {
+                reconciledTick = latestSnapshot.tick;
+                predictor.reconcile(latestSnapshot.ships, WorldSnapshot.CLIENT_SHIP_ID);
             }
-            
-            for (Enemy enemy : enemies) {
-                enemy.draw(canvas, paint);
+            float forceX = joystick.getForceX();
+            float forceY = joystick.getForceY();
+            boolean active = joystick.isActive();
+            int seq = predictor.step(forceX, forceY, active);
+            netClient.sendInput(seq, forceX, forceY, active);
+            camera.follow(spaceShip.getX(), spaceShip.getY());
+            for (Star star : stars) {
+                star.update(spaceShip.getVelocityX(), spaceShip.getVelocityY());
             }
             
-            spaceShip.draw(canvas, paint);
-            joystick.draw(canvas, paint);
-            drawHUD(canvas);
-            
+            int latestTick = netClient.getLatestTick();
+            if (latestTick > 0) {
+                float target = latestTick - INTERPOLATION_DELAY_TICKS;
+                renderTick += 1f;
+                if (Math.abs(target - renderTick) > MAX_RENDER_TICK_DRIFT) {
+                    renderTick = target;
+                } else {
+                    renderTick += (target - renderTick) * 0.1f;
+                }
+                if (netClient.interpolate(renderTick, renderSnapshot)) {
+                    applyRemoteWorld(renderSnapshot);
+                }
+            }
+            logNetStats(netClient.getStats());
+        } finally {
+            GameTrace.end();
+        }
+    }
+
+    private void applyRemoteWorld(WorldSnapshot snapshot) {
+        int row = snapshot.ships.indexOf(WorldSnapshot.HOST_SHIP_ID);
+        if (row >= 0) {
+            hostShip.setState(
+                snapshot.ships.get(row, WorldSnapshot.SHIP_X) / WorldSnapshot.POSITION_SCALE,
+                snapshot.ships.get(row, WorldSnapshot.SHIP_Y) / WorldSnapshot.POSITION_SCALE,
+                snapshot.ships.get(row, WorldSnapshot.SHIP_VX) / WorldSnapshot.VELOCITY_SCALE,
+                snapshot.ships.get(row, WorldSnapshot.SHIP_VY) / WorldSnapshot.VELOCITY_SCALE,
+                snapshot.ships.get(row, WorldSnapshot.SHIP_HEALTH));
+        }
+        
+        // Proxies are kept by id so per-object animation state survives between snapshots.
+        float pulse = (float)Math.sin(System.currentTimeMillis() * 0.01) * 0.2f + 0.8f;
+        EntityTable table = snapshot.enemies;
+        enemies.clear();
+        for (int i = 0; i < table.size; i++) {
+            int id = table.ids[i];
+            float x = table.get(i, WorldSnapshot.ENEMY_X) / WorldSnapshot.POSITION_SCALE;
+            float y = table.get(i, WorldSnapshot.ENEMY_Y) / WorldSnapshot.POSITION_SCALE;
+            Enemy enemy = remoteEnemies.get(id);
+            if (enemy == null) {
+                enemy = new Enemy(id, x, y, snapshot.level);
+            }
+            enemy.moveTo(x, y, pulse);
+            enemies.add(enemy);
+        }
+        remoteEnemies.clear();
+        for (int i = 0; i < enemies.size(); i++) {
+            remoteEnemies.put(enemies.get(i).getId(), enemies.get(i));
+        }
+        
+        table = snapshot.planets;
+        remotePlanetList.clear();
+        for (int i = 0; i < table.size; i++) {
+            int id = table.ids[i];
+            Planet planet = remotePlanets.get(id);
+            if (planet == null) {
+                planet = new Planet(id,
+                    table.get(i, WorldSnapshot.PLANET_X) / WorldSnapshot.POSITION_SCALE,
+                    table.get(i, WorldSnapshot.PLANET_Y) / WorldSnapshot.POSITION_SCALE,
+                    table.get(i, WorldSnapshot.PLANET_HEALTH),
+                    table.get(i, WorldSnapshot.PLANET_MAX_HEALTH));
+            }
+            planet.setHealth(table.get(i, WorldSnapshot.PLANET_HEALTH));
+            remotePlanetList.add(planet);
+        }
+        remotePlanets.clear();
+        for (int i = 0; i < remotePlanetList.size(); i++) {
+            remotePlanets.put(remotePlanetList.get(i).getId(), remotePlanetList.get(i));
+        }
+        
+        particleSystem.replaceBursts(snapshot.bursts, snapshot.particleTick);
+        gameState.syncFrom(snapshot.level, snapshot.score, snapshot.destroyedPlanets, snapshot.coins);
+    }
+
+    private void logNetStats(NetStats stats) {
+        if (tick % NET_STATS_INTERVAL_TICKS == 0) {
+            Log.i(TAG, "Net: " + stats);
+        }
+    }
+
+    /**
+     * Hosts a two-player session on {@code port}; the first client to send input takes the second
+     * ship. May be called from any thread; the game thread attaches the session at its next tick.
+     */
+    public boolean startHosting(int port) {
+        NetHost host;
+        try {
+            host = new NetHost(port);
+        } catch (SocketException e) {
+            Log.w(TAG, "Cannot host on port " + port, e);
+            return false;
+        }
+        synchronized (startupLock) {
+            if (destroyed) {
+                host.close();
+                return false;
+            }
+            if (pendingNetHost != null) {
+                pendingNetHost.close();
+            }
+            pendingNetHost = host;
+        }
+        return true;
+    }
+
+    // The world is only touched by the thread that owns it: the startup thread before ready, the
+    // game thread at the top of a tick after. Sessions started from other threads wait here.
+    private void attachPendingSession() {
+        NetHost host;
+        NetClient client;
+        synchronized (startupLock) {
+            host = pendingNetHost;
+            client = pendingNetClient;
+            pendingNetHost = null;
+            pendingNetClient = null;
+        }
+        if (host != null) {
+            attachHost(host);
+        }
+        if (client != null) {
+            attachClient(client);
+        }
+    }
+
+    private void attachHost(NetHost host) {
+        netHost = host;
+        wingman = new SpaceShip(world.getWidth() / 2, world.getHeight() / 2,
+            world.getWidth(), world.getHeight());
+        remoteJoystick = new VirtualJoystick(0, 0, 1);
+        clientInput = new ClientInput();
+        wingmanContacts = new ContactTracker(CONTACT_REPEAT_TICKS);
+    }
+
+    /**
+     * Joins a hosted session; the local ship is predicted and the rest of the world mirrors the
+     * host. May be called from any thread; the game thread attaches the session at its next tick.
+     */
+    public boolean joinSession(String host, int port) {
+        NetClient client;
+        try {
+            client = new NetClient(host, port);
+        } catch (SocketException e) {
+            Log.w(TAG, "Cannot join " + host + ":" + port, e);
+            return false;
+        }
+        synchronized (startupLock) {
+            if (destroyed) {
+                client.close();
+                return false;
+            }
+            if (pendingNetClient != null) {
+                pendingNetClient.close();
+            }
+            pendingNetClient = client;
+        }
+        return true;
+    }
+
+    private void attachClient(NetClient client) {
+        netClient = client;
+        hostShip = new SpaceShip(world.getWidth() / 2, world.getHeight() / 2,
+            world.getWidth(), world.getHeight());
+        latestSnapshot = new WorldSnapshot();
+        renderSnapshot = new WorldSnapshot();
+        remotePlanets = new SparseArray<>();
+        remoteEnemies = new SparseArray<>();
+        remotePlanetList = new ArrayList<>();
+        predictor = new ShipPredictor(spaceShip);
+        enemies.clear();
+    }
+
+    private void drawLoadingFrame() {
+        if (!surfaceHolder.getSurface().isValid()) {
+            return;
+        }
+        Canvas canvas = surfaceHolder.lockCanvas();
+        if (canvas == null) {
+            return;
+        }
+        canvas.drawColor(Color.BLACK);
+        canvas.drawText("LOADING", canvas.getWidth() / 2f, canvas.getHeight() / 2f, loadingPaint);
+        surfaceHolder.unlockCanvasAndPost(canvas);
+        startupMetrics.onFirstFrame();
+    }
+
+    private boolean draw() {
+        if (!surfaceHolder.getSurface().isValid()) {
+            return false;
+        }
+        Canvas canvas = surfaceHolder.lockCanvas();
+        if (canvas == null) {
+            return false;
+        }
+        GameTrace.begin(GameTrace.DRAW);
+        try {
+            renderScene(canvas);
             surfaceHolder.unlockCanvasAndPost(canvas);
+        } finally {
+            GameTrace.end();
         }
+        startupMetrics.onFirstFrame();
+        return true;
     }
 
-    private void drawCinematicBackground(Canvas canvas) {
-        RadialGradient gradient = new RadialGradient(
-            screenWidth / 2, screenHeight / 2, screenHeight,
-            Color.argb(255, 5, 5, 25),
-            Color.argb(255, 0, 0, 10),
-            Shader.TileMode.CLAMP
-        );
-        paint.setShader(gradient);
-        canvas.drawRect(0, 0, screenWidth, screenHeight, paint);
-        paint.setShader(null);
+    private void renderScene(Canvas canvas) {
+        measuringFrame = fillMeter.isEnabled();
+        if (measuringFrame) {
+            fillMeter.beginFrame();
+        }
+        boolean layered = drawMode.getMode() == DrawModeSelector.MODE_LAYERED;
+        if (layered) {
+            recordLayers();
+        }
+        
+        // The surface may be smaller than the display; map the virtual screen onto it.
+        canvas.save();
+        canvas.scale(canvas.getWidth() / (float)screenWidth, canvas.getHeight() / (float)screenHeight);
+        
+        if (layered) {
+            GameTrace.begin(GameTrace.DRAW_COMPOSITE);
+            try {
+                layers.composite(canvas);
+            } finally {
+                GameTrace.end();
+            }
+        } else {
+            GameTrace.begin(GameTrace.DRAW_DIRECT);
+            try {
+                layers.drawDirect(canvas);
+            } finally {
+                GameTrace.end();
+            }
+        }
+        
+        if (measuringFrame) {
+            measureFill();
+            fillMeter.endFrame();
+            if (fillMeter.isHeatmapEnabled()) {
+                fillMeter.drawHeatmap(canvas, paint);
+            }
+            if (tick % FILL_STATS_INTERVAL_TICKS == 0) {
+                Log.i(TAG, "Fill: " + fillMeter);
+            }
+        }
+        
+        canvas.restore();
+    }
+
+    private void recordLayers() {
+        if (measuringFrame) {
+            // Replayed layers would not report their shapes, so everything is re-recorded.
+            layers.invalidateAll();
+        }
+        layers.invalidate(backgroundLayer);
+        layers.invalidate(particleLayer);
+        layers.invalidate(planetLayer);
+        layers.invalidate(enemyLayer);
+        layers.invalidate(shipLayer);
+        if (joystickChanged()) {
+            layers.invalidate(joystickLayer);
+        }
+        if (hudChanged()) {
+            layers.invalidate(hudLayer);
+        }
+        
+        // The fill meter is not thread-safe, so measured frames record serially.
+        GameTrace.begin(GameTrace.DRAW_RECORD);
+        try {
+            layers.record(!measuringFrame);
+        } finally {
+            GameTrace.end();
+        }
+    }
+
+    private boolean joystickChanged() {
+        float forceX = joystick.getForceX();
+        float forceY = joystick.getForceY();
+        boolean active = joystick.isActive();
+        if (forceX == recordedForceX && forceY == recordedForceY && active == recordedJoystickActive) {
+            return false;
+        }
+        recordedForceX = forceX;
+        recordedForceY = forceY;
+        recordedJoystickActive = active;
+        return true;
+    }
+
+    private boolean hudChanged() {
+        int level = gameState.getCurrentLevel();
+        int destroyedPlanets = gameState.getDestroyedPlanets();
+        int remaining = netClient == null ? world.getRemainingPlanets() : -1;
+        int score = gameState.getScore();
+        long coins = gameState.getCoins();
+        if (level == hudLevel && destroyedPlanets == hudDestroyed && remaining == hudRemaining
+                && score == hudScore && coins == hudCoins) {
+            return false;
+        }
+        hudLevel = level;
+        hudDestroyed = destroyedPlanets;
+        hudRemaining = remaining;
+        hudScore = score;
+        hudCoins = coins;
+        return true;
+    }
+
+    // Mirrors the passes and culling of the render layers; particles and HUD text report while recording.
+    private void measureFill() {
+        fillMeter.beginPass(FillRateMeter.PASS_BACKGROUND, 0, 0);
+        fillMeter.rect(0, 0, screenWidth, screenHeight);
+        
+        fillMeter.beginPass(FillRateMeter.PASS_NEBULAS, 0, 0);
+        fillMeter.circle(screenWidth * 0.3f, screenHeight * 0.2f, 300);
+        fillMeter.circle(screenWidth * 0.7f, screenHeight * 0.6f, 250);
+        fillMeter.circle(screenWidth * 0.5f, screenHeight * 0.8f, 200);
+        
+        fillMeter.beginPass(FillRateMeter.PASS_STARS, 0, 0);
+        for (int i = 0; i < stars.size(); i++) {
+            stars.get(i).measureFill(fillMeter);
+        }
+        
+        fillMeter.beginPass(FillRateMeter.PASS_PLANETS, camera.getX(), camera.getY());
+        List<Planet> planets = netClient != null ? remotePlanetList : world.getActivePlanets();
+        for (int i = 0; i < planets.size(); i++) {
+            Planet planet = planets.get(i);
+            if (camera.isVisible(planet.getX(), planet.getY(), planet.getRadius() + 15)) {
+                planet.measureFill(fillMeter);
+            }
+        }
+        
+        fillMeter.beginPass(FillRateMeter.PASS_ENEMIES, camera.getX(), camera.getY());
+        for (int i = 0; i < enemies.size(); i++) {
+            Enemy enemy = enemies.get(i);
+            if (camera.isVisible(enemy.getX(), enemy.getY(), enemy.getRadius() + 25)) {
+                enemy.measureFill(fillMeter);
+            }
+        }
+        
+        fillMeter.beginPass(FillRateMeter.PASS_SHIP, camera.getX(), camera.getY());
+        spaceShip.measureFill(fillMeter);
+        SpaceShip partner = netClient != null ? hostShip : netHost != null ? wingman : null;
+        if (partner != null) {
+            partner.measureFill(fillMeter);
+        }
+        
+        fillMeter.beginPass(FillRateMeter.PASS_HUD, 0, 0);
+        joystick.measureFill(fillMeter);
+    }
+
+    /** One of {@link FillRateMeter#MODE_OFF}, {@code MODE_ESTIMATE} or {@code MODE_HEATMAP}. */
+    public void setOverdrawMode(int mode) {
+        fillMeter.setMode(mode);
+    }
+
+    public FillRateMeter getFillRateMeter() {
+        return fillMeter;
+    }
+
+    private void dispatchEvents() {
+        applyScoring();
+        spawnEffects();
+        recordEvents();
+        
+        boolean levelCleared = events.countOf(GameEventQueue.LEVEL_CLEARED) > 0;
+        boolean shipDestroyed = false;
+        boolean wingmanDestroyed = false;
+        for (int i = 0; i < events.size(); i++) {
+            if (events.getType(i) == GameEventQueue.SHIP_DESTROYED) {
+                if (events.getValue(i) == WorldSnapshot.CLIENT_SHIP_ID) {
+                    wingmanDestroyed = true;
+                } else {
+                    shipDestroyed = true;
+                }
+            }
+        }
+        if (levelCleared) {
+            gameState.saveGame(getContext());
+        }
+        // Rates use wall time, so slow frames and the pause after a ship reset count as elapsed time.
+        long now = System.nanoTime();
+        float elapsedSeconds = lastEventClearNanos != 0 ? (now - lastEventClearNanos) / 1e9f : TICK_SECONDS;
+        lastEventClearNanos = now;
+        events.clear(elapsedSeconds);
+        
+        if (wingmanDestroyed) {
+            // The wingman respawns on its own; only the host ship's loss resets the run.
+            wingman.reset(world.getWidth() / 2, world.getHeight() / 2);
+        }
+        if (levelCleared) {
+            startNewLevel();
+        }
+        if (shipDestroyed) {
+            resetGame();
+        }
+    }
+
+    private void applyScoring() {
+        for (int i = 0; i < events.size(); i++) {
+            switch (events.getType(i)) {
+                case GameEventQueue.PLANET_DESTROYED:
+                    gameState.planetDestroyed();
+                    break;
+                case GameEventQueue.SHIP_DESTROYED:
+                    if (events.getValue(i) == WorldSnapshot.HOST_SHIP_ID) {
+                        gameState.shipDestroyed();
+                    }
+                    break;
+                case GameEventQueue.LEVEL_CLEARED:
+                    gameState.nextLevel();
+                    break;
+            }
+        }
+    }
+
+    private void spawnEffects() {
+        for (int i = 0; i < events.size(); i++) {
+            float x = events.getX(i);
+            float y = events.getY(i);
+            switch (events.getType(i)) {
+                case GameEventQueue.PLANET_HIT:
+                    particleSystem.createImpact(x, y, 20, Color.CYAN);
+                    break;
+                case GameEventQueue.PLANET_DESTROYED:
+                    particleSystem.createExplosion(x, y, 80, Color.YELLOW);
+                    break;
+                case GameEventQueue.SHIP_DESTROYED:
+                    particleSystem.createExplosion(x, y, 50, Color.RED);
+                    break;
+            }
+        }
+    }
+
+    private void recordEvents() {
+        for (int i = 0; i < events.size(); i++) {
+            int type = events.getType(i);
+            if (type == GameEventQueue.SHIP_DESTROYED || type == GameEventQueue.PLANET_DESTROYED
+                    || type == GameEventQueue.LEVEL_CLEARED) {
+                flightRecorder.recordEvent(type, events.getX(i), events.getY(i));
+            }
+        }
+    }
+
+    public float getEventRate(int type) {
+        return events.getRate(type);
+    }
+
+    public void setContactRepeatTicks(int ticks) {
+        contacts.setRepeatInterval(ticks);
+    }
+
+    // The bitmap stays pinned until the recording has been played back; see the background layer.
+    private void drawCinematicBackground(Canvas canvas, Paint paint) {
+        Bitmap background = renderCache.acquire(BACKGROUND_KEY);
+        if (background == null) {
+            background = renderCache.putAndAcquire(BACKGROUND_KEY, createBackground());
+        }
+        canvas.drawBitmap(background, null, screenRect, bitmapPaint);
         
         for (Star star : stars) {
             star.draw(canvas, paint);
         }
         
-        drawNebulas(canvas);
+        drawNebulas(canvas, paint);
+    }
+
+    // The gradient is smooth, so a downsampled 16-bit bitmap is indistinguishable once filtered up.
+    private Bitmap createBackground() {
+        int width = screenWidth / BACKGROUND_DOWNSAMPLE;
+        int height = screenHeight / BACKGROUND_DOWNSAMPLE;
+        Bitmap bitmap = Bitmap.createBitmap(width, height, Bitmap.Config.RGB_565);
+        Paint gradientPaint = new Paint();
+        gradientPaint.setDither(true);
+        gradientPaint.setShader(new RadialGradient(
+            width / 2, height / 2, height,
+            Color.argb(255, 5, 5, 25),
+            Color.argb(255, 0, 0, 10),
+            Shader.TileMode.CLAMP
+        ));
+        new Canvas(bitmap).drawRect(0, 0, width, height, gradientPaint);
+        return bitmap;
+    }
+
+    public void onTrimMemory(int level) {
+        renderCache.onTrimMemory(level);
     }
 
-    private void drawNebulas(Canvas canvas) {
+    private void drawNebulas(Canvas canvas, Paint paint) {
         paint.setColor(Color.argb(30, 50, 100, 255));
         canvas.drawCircle(screenWidth * 0.3f, screenHeight * 0.2f, 300, paint);
         
@@ -192,19 +1098,36 @@ public class GameEngine extends SurfaceView implements Runnable {
         canvas.drawCircle(screenWidth * 0.5f, screenHeight * 0.8f, 200, paint);
     }
 
-    private void drawHUD(Canvas canvas) {
+    private void drawHUD(Canvas canvas, Paint paint) {
         paint.setColor(Color.WHITE);
         paint.setTextSize(36);
+        paint.setTextAlign(Paint.Align.LEFT);
         paint.setShadowLayer(3, 2, 2, Color.BLACK);
         
-        canvas.drawText("LEVEL: " + gameState.getCurrentLevel(), 30, 50, paint);
-        canvas.drawText("PLANETS: " + planets.size() + "/20", 30, 100, paint);
-        canvas.drawText("SCORE: " + gameState.getScore(), screenWidth - 300, 50, paint);
-        canvas.drawText("COINS: " + formatCoins(gameState.getCoins()), screenWidth - 300, 100, paint);
+        drawHudText(canvas, paint, "LEVEL: " + gameState.getCurrentLevel(), 30, 50);
+        drawHudText(canvas, paint, "PLANETS: " + (PLANETS_PER_LEVEL - gameState.getDestroyedPlanets())
+            + "/" + PLANETS_PER_LEVEL, 30, 100);
+        if (netClient == null) {
+            drawHudText(canvas, paint, "SECTOR: " + world.getRemainingPlanets() + "/" + world.getTotalPlanets(),
+                30, 150);
+        }
+        drawHudText(canvas, paint, "SCORE: " + gameState.getScore(), screenWidth - 300, 50);
+        drawHudText(canvas, paint, "COINS: " + formatCoins(gameState.getCoins()), screenWidth - 300, 100);
         
         paint.setShadowLayer(0, 0, 0, 0);
     }
 
+    private void drawHudText(Canvas canvas, Paint paint, String text, float x, float y) {
+        canvas.drawText(text, x, y, paint);
+        if (measuringFrame) {
+            // Shadowed text is filled twice; count its bounding box once per layer.
+            fillMeter.beginPass(FillRateMeter.PASS_HUD, 0, 0);
+            float width = paint.measureText(text);
+            fillMeter.rect(x, y - paint.getTextSize(), x + width, y);
+            fillMeter.rect(x + 2, y + 2 - paint.getTextSize(), x + 2 + width, y + 2);
+        }
+    }
+
     private String formatCoins(long coins) {
         if (coins >= 1000000) {
             return String.format("%.1fM", coins / 1000000.0);
@@ -216,8 +1139,11 @@ public class GameEngine extends SurfaceView implements Runnable {
 
     @Override
     public boolean onTouchEvent(MotionEvent event) {
-        float x = event.getX();
-        float y = event.getY();
+        if (!ready) {
+            return true;
+        }
+        float x = event.getX() * screenWidth / Math.max(1, getWidth());
+        float y = event.getY() * screenHeight / Math.max(1, getHeight());
         
         switch (event.getAction()) {
             case MotionEvent.ACTION_DOWN:
@@ -233,6 +1159,23 @@ public class GameEngine extends SurfaceView implements Runnable {
         return true;
     }
 
+    private void applyRenderScale() {
+        final float scale = resolutionScaler.getScale();
+        final int width = Math.max(1, Math.round(displayWidth * scale));
+        final int height = Math.max(1, Math.round(displayHeight * scale));
+        // setFixedSize must run on the UI thread; the compositor upscales the smaller buffer.
+        post(new Runnable() {
+            @Override
+            public void run() {
+                surfaceHolder.setFixedSize(width, height);
+            }
+        });
+    }
+
+    public float getRenderScale() {
+        return resolutionScaler.getScale();
+    }
+
     private void controlFPS() {
         try {
             long currentTime = System.currentTimeMillis();
@@ -247,19 +1190,55 @@ public class GameEngine extends SurfaceView implements Runnable {
     }
 
     private void resetGame() {
-        spaceShip.reset(screenWidth / 2, screenHeight / 2);
+        spaceShip.reset(world.getWidth() / 2, world.getHeight() / 2);
+        contacts.clear();
+        camera.snapTo(spaceShip.getX(), spaceShip.getY());
         try {
             Thread.sleep(1000);
         } catch (InterruptedException e) {
             e.printStackTrace();
         }
+        frameTimingInterrupted = true;
+    }
+
+    public void dumpFlightRecorder() {
+        if (ready) {
+            flightRecorder.dump(FlightRecorder.REASON_MANUAL);
+        }
+    }
+
+    public StartupMetrics getStartupMetrics() {
+        return startupMetrics;
     }
 
     public void pauseGame() {
+        stopGameThread();
+        renderCache.releaseAll();
+    }
+
+    // Waits out the in-flight frame, so nothing is released while it is still drawing or recording.
+    private void stopGameThread() {
         playing = false;
+        Thread thread = gameThread;
+        if (thread == null || thread == Thread.currentThread()) {
+            return;
+        }
+        boolean interrupted = false;
+        while (thread.isAlive()) {
+            try {
+                thread.join();
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        gameThread = null;
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
     }
 
     public void resumeGame() {
+        renderCache.warmAsync();
         if (!playing) {
             playing = true;
             gameThread = new Thread(this);
@@ -268,7 +1247,35 @@ public class GameEngine extends SurfaceView implements Runnable {
     }
 
     public void destroyGame() {
-        playing = false;
-        gameState.saveGame(getContext());
+        stopGameThread();
+        synchronized (startupLock) {
+            destroyed = true;
+            // Sessions that were never attached.
+            if (pendingNetHost != null) {
+                pendingNetHost.close();
+                pendingNetHost = null;
+            }
+            if (pendingNetClient != null) {
+                pendingNetClient.close();
+                pendingNetClient = null;
+            }
+            if (!ready) {
+                // The startup thread shuts down whatever it has built once it sees the flag.
+                renderCache.shutdown();
+                return;
+            }
+        }
+        if (netHost != null) {
+            netHost.close();
+        }
+        if (netClient != null) {
+            netClient.close();
+        } else {
+            gameState.saveGame(getContext());
+        }
+        flightRecorder.shutdown();
+        world.shutdown();
+        layers.shutdown();
+        renderCache.shutdown();
     }
                          }
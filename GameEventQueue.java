@@ -0,0 +1,100 @@
+package com.space.ship.game;
+
+/**
+ * Typed gameplay events written during a tick and consumed in batches afterwards. Events live in
+ * parallel primitive arrays that are reused every tick, so posting does not allocate once the
+ * queue has grown to the busiest tick seen.
+ */
+class GameEventQueue {
+    /** Value is the ship id from {@link WorldSnapshot}: the host ship or the client's wingman. */
+    static final int SHIP_DESTROYED = 1;
+    static final int PLANET_DESTROYED = 2;
+    static final int LEVEL_CLEARED = 3;
+    static final int PLANET_HIT = 4;
+    static final int CONTACT_ENTER = 5;
+    static final int CONTACT_EXIT = 6;
+    static final int TYPE_COUNT = 7;
+
+    private static final float RATE_SMOOTHING = 0.05f;
+
+    private int[] types;
+    private float[] xs;
+    private float[] ys;
+    private int[] values;
+    private int size;
+
+    private final int[] tickCounts = new int[TYPE_COUNT];
+    private final long[] totalCounts = new long[TYPE_COUNT];
+    private final float[] ratesPerSecond = new float[TYPE_COUNT];
+
+    public GameEventQueue(int initialCapacity) {
+        types = new int[initialCapacity];
+        xs = new float[initialCapacity];
+        ys = new float[initialCapacity];
+        values = new int[initialCapacity];
+    }
+
+    public void post(int type, float x, float y, int value) {
+        if (size == types.length) {
+            grow();
+        }
+        types[size] = type;
+        xs[size] = x;
+        ys[size] = y;
+        values[size] = value;
+        size++;
+        tickCounts[type]++;
+    }
+
+    public int size() { return size; }
+    public int getType(int index) { return types[index]; }
+    public float getX(int index) { return xs[index]; }
+    public float getY(int index) { return ys[index]; }
+    public int getValue(int index) { return values[index]; }
+
+    /** Number of events of {@code type} posted since the last {@link #clear}. */
+    public int countOf(int type) {
+        return tickCounts[type];
+    }
+
+    /**
+     * Ends the tick: folds this tick's counts into the rate metrics and empties the queue.
+     * {@code tickSeconds} is the real time since the previous clear.
+     */
+    public void clear(float tickSeconds) {
+        for (int type = 0; type < TYPE_COUNT; type++) {
+            int count = tickCounts[type];
+            totalCounts[type] += count;
+            if (tickSeconds > 0) {
+                ratesPerSecond[type] += (count / tickSeconds - ratesPerSecond[type]) * RATE_SMOOTHING;
+            }
+            tickCounts[type] = 0;
+        }
+        size = 0;
+    }
+
+    public long getTotalCount(int type) {
+        return totalCounts[type];
+    }
+
+    /** Smoothed events per second for {@code type}. */
+    public float getRate(int type) {
+        return ratesPerSecond[type];
+    }
+
+    private void grow() {
+        int capacity = types.length * 2;
+        int[] newTypes = new int[capacity];
+        float[] newXs = new float[capacity];
+        float[] newYs = new float[capacity];
+        int[] newValues = new int[capacity];
+        System.arraycopy(types, 0, newTypes, 0, size);
+        System.arraycopy(xs, 0, newXs, 0, size);
+        System.arraycopy(ys, 0, newYs, 0, size);
+        System.arraycopy(values, 0, newValues, 0, size);
+        types = newTypes;
+        xs = newXs;
+        ys = newYs;
+        values = newValues;
+    }
+}
@@ -3,9 +3,8 @@ package com.space.ship.game;
 import android.graphics.Canvas;
 import android.graphics.Color;
 import android.graphics.Paint;
-import android.graphics.RadialGradient;
-import android.graphics.Shader;
 import java.util.Random;
+import java.util.concurrent.atomic.AtomicInteger;
 
 class SpaceShip {
     private float x, y;
@@ -14,15 +13,15 @@ class SpaceShip {
     private float acceleration = 0.5f;
     private float friction = 0.94f;
     private int health = 100;
-    private int screenX, screenY;
+    private float worldWidth, worldHeight;
     private Random random = new Random();
     private float engineGlow = 0;
     
-    public SpaceShip(float startX, float startY, int screenX, int screenY) {
+    public SpaceShip(float startX, float startY, float worldWidth, float worldHeight) {
         this.x = startX;
         this.y = startY;
-        this.screenX = screenX;
-        this.screenY = screenY;
+        this.worldWidth = worldWidth;
+        this.worldHeight = worldHeight;
     }
     
     public void update(VirtualJoystick joystick) {
@@ -46,21 +45,16 @@ class SpaceShip {
         x += velocityX;
         y += velocityY;
         
-        x = Math.max(40, Math.min(screenX - 40, x));
-        y = Math.max(40, Math.min(screenY - 40, y));
+        x = Math.max(40, Math.min(worldWidth - 40, x));
+        y = Math.max(40, Math.min(worldHeight - 40, y));
     }
     
-    public void draw(Canvas canvas, Paint paint) {
-        RadialGradient shipGradient = new RadialGradient(
-            x, y, 35,
+    public void draw(Canvas canvas, Paint paint, ShaderCache shaders) {
+        shaders.fillCircle(canvas, paint,
             Color.argb(255, 0, 200, 255),
             Color.argb(255, 0, 100, 200),
-            Shader.TileMode.CLAMP
-        );
-        paint.setShader(shipGradient);
-        canvas.drawCircle(x, y, 35, paint);
+            x, y, 35);
         
-        paint.setShader(null);
         paint.setColor(Color.argb(180, 200, 230, 255));
         canvas.drawCircle(x, y, 20, paint);
         
@@ -68,8 +62,8 @@ class SpaceShip {
         canvas.drawCircle(x, y, 15, paint);
         
         drawWings(canvas, paint);
-        drawEngines(canvas, paint);
-        drawGlow(canvas, paint);
+        drawEngines(canvas, paint, shaders);
+        drawGlow(canvas, paint, shaders);
     }
     
     private void drawWings(Canvas canvas, Paint paint) {
@@ -82,53 +76,60 @@ class SpaceShip {
         canvas.drawRoundRect(x + 33, y - 8, x + 42, y + 8, 5, 5, paint);
     }
     
-    private void drawEngines(Canvas canvas, Paint paint) {
+    private void drawEngines(Canvas canvas, Paint paint, ShaderCache shaders) {
         float enginePower = engineGlow;
+        int coreColor = Color.argb(255, 255,
+            (int)(200 + ShaderCache.quantize(enginePower, 8) * 55), 0);
+        int edgeColor = Color.argb(100, 255, 100, 0);
         
-        RadialGradient leftEngine = new RadialGradient(
-            x - 38, y, 15 + enginePower * 10,
-            Color.argb(255, 255, (int)(200 + enginePower * 55), 0),
-            Color.argb(100, 255, 100, 0),
-            Shader.TileMode.CLAMP
-        );
-        paint.setShader(leftEngine);
-        canvas.drawCircle(x - 38, y, 8 + enginePower * 5, paint);
-        
-        RadialGradient rightEngine = new RadialGradient(
-            x + 38, y, 15 + enginePower * 10,
-            Color.argb(255, 255, (int)(200 + enginePower * 55), 0),
-            Color.argb(100, 255, 100, 0),
-            Shader.TileMode.CLAMP
-        );
-        paint.setShader(rightEngine);
-        canvas.drawCircle(x + 38, y, 8 + enginePower * 5, paint);
+        shaders.fillCircle(canvas, paint, coreColor, edgeColor,
+            x - 38, y, 15 + enginePower * 10, 8 + enginePower * 5);
         
-        paint.setShader(null);
+        shaders.fillCircle(canvas, paint, coreColor, edgeColor,
+            x + 38, y, 15 + enginePower * 10, 8 + enginePower * 5);
     }
     
-    private void drawGlow(Canvas canvas, Paint paint) {
-        RadialGradient glow = new RadialGradient(
-            x, y, 50,
+    private void drawGlow(Canvas canvas, Paint paint, ShaderCache shaders) {
+        shaders.fillCircle(canvas, paint,
             Color.argb(50, 0, 150, 255),
             Color.argb(0, 0, 100, 200),
-            Shader.TileMode.CLAMP
-        );
-        paint.setShader(glow);
-        canvas.drawCircle(x, y, 50, paint);
-        paint.setShader(null);
+            x, y, 50);
+    }
+    
+    /** Reports the shapes {@link #draw} fills, for overdraw estimation. */
+    public void measureFill(FillRateMeter meter) {
+        meter.circle(x, y, 35);
+        meter.circle(x, y, 20);
+        meter.circle(x, y, 15);
+        meter.rect(x - 45, y - 12, x - 30, y + 12);
+        meter.rect(x + 30, y - 12, x + 45, y + 12);
+        meter.rect(x - 42, y - 8, x - 33, y + 8);
+        meter.rect(x + 33, y - 8, x + 42, y + 8);
+        meter.circle(x - 38, y, 8 + engineGlow * 5);
+        meter.circle(x + 38, y, 8 + engineGlow * 5);
+        meter.circle(x, y, 50);
     }
     
     public boolean checkCollision(GameObject other) {
         float dx = x - other.getX();
         float dy = y - other.getY();
-        float distance = (float)Math.sqrt(dx * dx + dy * dy);
-        return distance < (35 + other.getRadius());
+        float reach = 35 + other.getRadius();
+        return dx * dx + dy * dy < reach * reach;
     }
     
     public void takeDamage(int damage) {
         health = Math.max(0, health - damage);
     }
     
+    /** Overwrites the simulated state, used when mirroring or reconciling a networked ship. */
+    public void setState(float x, float y, float velocityX, float velocityY, int health) {
+        this.x = x;
+        this.y = y;
+        this.velocityX = velocityX;
+        this.velocityY = velocityY;
+        this.health = health;
+    }
+    
     public void reset(float newX, float newY) {
         x = newX;
         y = newY;
@@ -147,39 +148,38 @@ class SpaceShip {
 class Planet extends GameObject {
     private int health;
     private int maxHealth;
-    private int screenX, screenY;
     private Random random = new Random();
     private float rotation = 0;
     
-    public Planet(float x, float y, int health, int screenX, int screenY) {
+    public Planet(float x, float y, int health, int maxHealth) {
         super(x, y, 70);
         this.health = health;
-        this.maxHealth = health;
-        this.screenX = screenX;
-        this.screenY = screenY;
+        this.maxHealth = maxHealth;
+    }
+    
+    public Planet(int id, float x, float y, int health, int maxHealth) {
+        super(id, x, y, 70);
+        this.health = health;
+        this.maxHealth = maxHealth;
     }
     
     @Override
-    public void draw(Canvas canvas, Paint paint) {
+    public void draw(Canvas canvas, Paint paint, ShaderCache shaders) {
         rotation += 1f;
         
         float healthRatio = (float)health / maxHealth;
-        int red = (int)(255 * (1 - healthRatio));
-        int green = (int)(255 * healthRatio);
-        int blue = (int)(150 * healthRatio);
+        float colorRatio = ShaderCache.quantize(healthRatio, 16);
+        int red = (int)(255 * (1 - colorRatio));
+        int green = (int)(255 * colorRatio);
+        int blue = (int)(150 * colorRatio);
         
-        RadialGradient planetGradient = new RadialGradient(
-            x, y, radius,
+        shaders.fillCircle(canvas, paint,
             Color.argb(255, red, green, blue),
             Color.argb(255, red/2, green/2, blue/2),
-            Shader.TileMode.CLAMP
-        );
-        paint.setShader(planetGradient);
-        canvas.drawCircle(x, y, radius, paint);
-        paint.setShader(null);
+            x, y, radius);
         
         drawPlanetDetails(canvas, paint, healthRatio);
-        drawAtmosphere(canvas, paint);
+        drawAtmosphere(canvas, paint, shaders);
         
         paint.setColor(Color.WHITE);
         paint.setTextSize(28);
@@ -206,16 +206,28 @@ class Planet extends GameObject {
         }
     }
     
-    private void drawAtmosphere(Canvas canvas, Paint paint) {
-        RadialGradient atmosphere = new RadialGradient(
-            x, y, radius + 15,
+    private void drawAtmosphere(Canvas canvas, Paint paint, ShaderCache shaders) {
+        shaders.fillCircle(canvas, paint,
             Color.argb(80, 100, 200, 255),
             Color.argb(0, 100, 200, 255),
-            Shader.TileMode.CLAMP
-        );
-        paint.setShader(atmosphere);
-        canvas.drawCircle(x, y, radius + 15, paint);
-        paint.setShader(null);
+            x, y, radius + 15);
+    }
+    
+    @Override
+    public void measureFill(FillRateMeter meter) {
+        meter.circle(x, y, radius);
+        for (int i = 0; i < 4; i++) {
+            float angle = rotation + i * 90;
+            meter.circle(x + (float)Math.cos(Math.toRadians(angle)) * radius * 0.6f,
+                y + (float)Math.sin(Math.toRadians(angle)) * radius * 0.6f, radius * 0.3f);
+        }
+        if ((float)health / maxHealth > 0.3f) {
+            for (int i = 0; i < 3; i++) {
+                meter.circle(x + (float)Math.cos(Math.toRadians(rotation * 2 + i * 120)) * radius * 0.4f,
+                    y + (float)Math.sin(Math.toRadians(rotation * 2 + i * 120)) * radius * 0.4f, radius * 0.2f);
+            }
+        }
+        meter.circle(x, y, radius + 15);
     }
     
     public void takeDamage(int damage) {
@@ -225,50 +237,66 @@ class Planet extends GameObject {
     public boolean isDestroyed() {
         return health <= 0;
     }
+    
+    public void setHealth(int health) {
+        this.health = health;
+    }
+    
+    public int getHealth() { return health; }
+    public int getMaxHealth() { return maxHealth; }
 }
 
 class Enemy extends GameObject {
+    // Scratch for FlowField.sample; swarm steering only runs on the game thread.
+    private static final float[] STEERING = new float[2];
     private float velocityX, velocityY;
-    private int screenX, screenY;
     private int level;
     private Random random = new Random();
     private float rotation = 0;
     private float pulse = 0;
     
-    public Enemy(int screenX, int screenY, int level) {
+    public Enemy(Camera camera, int level) {
         super(0, 0, 45);
-        this.screenX = screenX;
-        this.screenY = screenY;
         this.level = level;
-        initializePosition();
+        initializePosition(camera);
     }
     
-    private void initializePosition() {
+    public Enemy(int id, float x, float y, int level) {
+        super(id, x, y, 45);
+        this.level = level;
+        this.pulse = 1f;
+    }
+    
+    private void initializePosition(Camera camera) {
         int side = random.nextInt(4);
         float speed = 2 + level * 0.5f;
+        float left = camera.getX();
+        float top = camera.getY();
+        int viewWidth = camera.getViewWidth();
+        int viewHeight = camera.getViewHeight();
         
         switch (side) {
             case 0:
-                x = random.nextFloat() * screenX;
-                y = -radius;
+                x = left + random.nextFloat() * viewWidth;
+                y = top - radius;
                 velocityX = (random.nextFloat() - 0.5f) * speed;
                 velocityY = speed;
                 break;
             case 1:
-                x = screenX + radius;
-                y = random.nextFloat() * screenY;
+                x = left + viewWidth + radius;
+                y = top + random.nextFloat() * viewHeight;
                 velocityX = -speed;
                 velocityY = (random.nextFloat() - 0.5f) * speed;
                 break;
             case 2:
-                x = random.nextFloat() * screenX;
-                y = screenY + radius;
+                x = left + random.nextFloat() * viewWidth;
+                y = top + viewHeight + radius;
                 velocityX = (random.nextFloat() - 0.5f) * speed;
                 velocityY = -speed;
                 break;
             case 3:
-                x = -radius;
-                y = random.nextFloat() * screenY;
+                x = left - radius;
+                y = top + random.nextFloat() * viewHeight;
                 velocityX = speed;
                 velocityY = (random.nextFloat() - 0.5f) * speed;
                 break;
@@ -299,24 +327,51 @@ class Enemy extends GameObject {
         pulse = (float)Math.sin(System.currentTimeMillis() * 0.01) * 0.2f + 0.8f;
     }
     
+    public void steer(FlowField field, SpaceShip ship, float pulse) {
+        if (!field.sample(x, y, getId(), STEERING)) {
+            update(ship);
+            return;
+        }
+        
+        float baseSpeed = 2 + level * 0.4f;
+        velocityX += STEERING[0] * 0.08f * baseSpeed;
+        velocityY += STEERING[1] * 0.08f * baseSpeed;
+        
+        float maxSpeed = 3 + level * 0.5f;
+        float speedSquared = velocityX * velocityX + velocityY * velocityY;
+        if (speedSquared > maxSpeed * maxSpeed) {
+            float scale = maxSpeed / (float)Math.sqrt(speedSquared);
+            velocityX *= scale;
+            velocityY *= scale;
+        }
+        
+        x += velocityX;
+        y += velocityY;
+        rotation += 4;
+        this.pulse = pulse;
+    }
+    
+    /** Moves a mirrored enemy to its interpolated position; only the animation runs locally. */
+    public void moveTo(float x, float y, float pulse) {
+        this.x = x;
+        this.y = y;
+        rotation += 4;
+        this.pulse = pulse;
+    }
+    
     @Override
-    public void draw(Canvas canvas, Paint paint) {
-        RadialGradient enemyGradient = new RadialGradient(
-            x, y, radius * pulse,
+    public void draw(Canvas canvas, Paint paint, ShaderCache shaders) {
+        shaders.fillCircle(canvas, paint,
             Color.argb(255, 255, 50, 50),
             Color.argb(255, 150, 0, 0),
-            Shader.TileMode.CLAMP
-        );
-        paint.setShader(enemyGradient);
-        canvas.drawCircle(x, y, radius * pulse, paint);
+            x, y, radius * pulse);
         
-        paint.setShader(null);
         paint.setColor(Color.argb(255, 255, 200, 200));
         canvas.drawCircle(x, y, radius * 0.6f * pulse, paint);
         
         drawSpikes(canvas, paint);
         drawEyes(canvas, paint);
-        drawDangerAura(canvas, paint);
+        drawDangerAura(canvas, paint, shaders);
     }
     
     private void drawSpikes(Canvas canvas, Paint paint) {
@@ -349,20 +404,31 @@ class Enemy extends GameObject {
         canvas.drawCircle(rightEyeX, rightEyeY, 3, paint);
     }
     
-    private void drawDangerAura(Canvas canvas, Paint paint) {
-        RadialGradient aura = new RadialGradient(
-            x, y, radius + 25,
+    private void drawDangerAura(Canvas canvas, Paint paint, ShaderCache shaders) {
+        shaders.fillCircle(canvas, paint,
             Color.argb(60, 255, 0, 0),
             Color.argb(0, 255, 0, 0),
-            Shader.TileMode.CLAMP
-        );
-        paint.setShader(aura);
-        canvas.drawCircle(x, y, radius + 25, paint);
-        paint.setShader(null);
+            x, y, radius + 25);
+    }
+    
+    @Override
+    public void measureFill(FillRateMeter meter) {
+        meter.circle(x, y, radius * pulse);
+        meter.circle(x, y, radius * 0.6f * pulse);
+        for (int i = 0; i < 8; i++) {
+            float angle = rotation + i * 45;
+            meter.circle(x + (float)Math.cos(Math.toRadians(angle)) * radius * 1.3f,
+                y + (float)Math.sin(Math.toRadians(angle)) * radius * 1.3f, 8);
+        }
+        meter.circle(x - radius * 0.3f, y - radius * 0.2f, 6);
+        meter.circle(x + radius * 0.3f, y - radius * 0.2f, 6);
+        meter.circle(x - radius * 0.3f, y - radius * 0.2f, 3);
+        meter.circle(x + radius * 0.3f, y - radius * 0.2f, 3);
+        meter.circle(x, y, radius + 25);
     }
     
-    public boolean isOutOfScreen() {
-        return x < -100 || x > screenX + 100 || y < -100 || y > screenY + 100;
+    public boolean isOutOfView(Camera camera) {
+        return !camera.isVisible(x, y, radius + 100);
     }
 }
 
@@ -371,13 +437,16 @@ class Star {
     private float size;
     private float speed;
     private float brightness;
+    private int viewWidth, viewHeight;
     private Random random = new Random();
     
-    public Star(float x, float y, float size, float speed) {
+    public Star(float x, float y, float size, float speed, int viewWidth, int viewHeight) {
         this.x = x;
         this.y = y;
         this.size = size;
         this.speed = speed;
+        this.viewWidth = viewWidth;
+        this.viewHeight = viewHeight;
         this.brightness = random.nextFloat() * 0.7f + 0.3f;
     }
     
@@ -385,10 +454,10 @@ class Star {
         x -= shipVelX * speed * 0.1f;
         y -= shipVelY * speed * 0.1f;
         
-        if (x < -20) x = 1080;
-        if (x > 1080) x = -20;
-        if (y < -20) y = 1920;
-        if (y > 1920) y = -20;
+        if (x < -20) x = viewWidth;
+        if (x > viewWidth) x = -20;
+        if (y < -20) y = viewHeight;
+        if (y > viewHeight) y = -20;
     }
     
     public void draw(Canvas canvas, Paint paint) {
@@ -399,6 +468,11 @@ class Star {
         paint.setColor(Color.argb(alpha/2, 255, 255, 255));
         canvas.drawCircle(x, y, size * 2, paint);
     }
+    
+    public void measureFill(FillRateMeter meter) {
+        meter.circle(x, y, size);
+        meter.circle(x, y, size * 2);
+    }
 }
 
 class VirtualJoystick {
@@ -434,6 +508,15 @@ class VirtualJoystick {
         }
     }
     
+    /** Applies a force received over the network, clamped to the base like a touch would be. */
+    public void setForce(boolean active, float forceX, float forceY) {
+        if (active) {
+            setActive(true, centerX + forceX * baseRadius, centerY + forceY * baseRadius);
+        } else {
+            setActive(false, 0, 0);
+        }
+    }
+    
     private void resetHandle() {
         handleX = centerX;
         handleY = centerY;
@@ -450,6 +533,12 @@ class VirtualJoystick {
         canvas.drawCircle(handleX, handleY, handleRadius * 0.5f, paint);
     }
     
+    public void measureFill(FillRateMeter meter) {
+        meter.circle(centerX, centerY, baseRadius);
+        meter.circle(handleX, handleY, handleRadius);
+        meter.circle(handleX, handleY, handleRadius * 0.5f);
+    }
+    
     public float getForceX() {
         return (handleX - centerX) / baseRadius;
     }
@@ -464,17 +553,28 @@ class VirtualJoystick {
 }
 
 abstract class GameObject {
+    private static final AtomicInteger nextId = new AtomicInteger();
+    
+    private final int id;
     protected float x, y;
     protected int radius;
     
     public GameObject(float x, float y, int radius) {
+        this(nextId.getAndIncrement(), x, y, radius);
+    }
+    
+    protected GameObject(int id, float x, float y, int radius) {
+        this.id = id;
         this.x = x;
         this.y = y;
         this.radius = radius;
     }
     
-    public abstract void draw(Canvas canvas, Paint paint);
+    public abstract void draw(Canvas canvas, Paint paint, ShaderCache shaders);
+    
+    public abstract void measureFill(FillRateMeter meter);
     
+    public int getId() { return id; }
     public float getX() { return x; }
     public float getY() { return y; }
     public int getRadius() { return radius; }
@@ -35,6 +35,14 @@ public class GameState {
         score += 1000;
     }
     
+    /** Mirrors the host's progress on a networked client. */
+    public void syncFrom(int level, int score, int destroyedPlanets, long coins) {
+        this.currentLevel = level;
+        this.score = score;
+        this.destroyedPlanets = destroyedPlanets;
+        this.coins = coins;
+    }
+    
     public void saveGame(Context context) {
         SharedPreferences prefs = context.getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE);
         SharedPreferences.Editor editor = prefs.edit();
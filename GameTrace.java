@@ -0,0 +1,35 @@
+package com.space.ship.game;
+
+import android.os.Trace;
+
+final class GameTrace {
+    static final String UPDATE = "SpaceShip.update";
+    static final String UPDATE_COLLISION = "SpaceShip.update.collision";
+    static final String UPDATE_PARTICLES = "SpaceShip.update.particles";
+    static final String DRAW = "SpaceShip.draw";
+    static final String DRAW_BACKGROUND = "SpaceShip.draw.background";
+    static final String DRAW_PARTICLES = "SpaceShip.draw.particles";
+    static final String DRAW_PLANETS = "SpaceShip.draw.planets";
+    static final String DRAW_ENEMIES = "SpaceShip.draw.enemies";
+    static final String DRAW_SHIP = "SpaceShip.draw.ship";
+    static final String DRAW_HUD = "SpaceShip.draw.hud";
+    static final String DRAW_RECORD = "SpaceShip.draw.record";
+    static final String DRAW_COMPOSITE = "SpaceShip.draw.composite";
+    static final String DRAW_DIRECT = "SpaceShip.draw.direct";
+    static final String STARTUP = "SpaceShip.startup";
+    static final String STARTUP_WORLD = "SpaceShip.startup.world";
+    static final String STARTUP_CACHES = "SpaceShip.startup.caches";
+    static final String STARTUP_WARMUP = "SpaceShip.startup.warmup";
+
+    private GameTrace() {
+    }
+
+    // Sections show up in systrace / Perfetto captures; nesting must be strictly LIFO per thread.
+    static void begin(String section) {
+        Trace.beginSection(section);
+    }
+
+    static void end() {
+        Trace.endSection();
+    }
+}
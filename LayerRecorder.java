@@ -0,0 +1,202 @@
+package com.space.ship.game;
+
+import android.graphics.Canvas;
+import android.graphics.Paint;
+import android.graphics.Picture;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * Records render layers into retained {@link Picture}s and composites them in the order they were
+ * added. Invalidated layers are re-recorded each frame, spread over a worker pool with the calling
+ * thread taking one share; layers that were not invalidated are replayed from their last
+ * recording. Every layer owns its Paint and ShaderCache, so layers must not share other mutable
+ * drawing state. Callers must not mutate what layers read until {@link #record} returns.
+ * {@link #drawDirect} skips the recordings and draws every layer straight onto the frame.
+ */
+class LayerRecorder {
+    abstract static class Layer {
+        /** Draws the layer into its recording, or onto the frame itself when drawn directly. */
+        abstract void record(Canvas canvas, Paint paint, ShaderCache shaders);
+
+        /** Called once a fresh recording has been composited or a direct draw is done; release per-frame pins here. */
+        void onComposited() {
+        }
+    }
+
+    private final int width, height;
+    private final List<Slot> slots = new ArrayList<>();
+    private final ExecutorService workers;
+    private final Object lock = new Object();
+    private int pending;
+    private RuntimeException failure;
+
+    /** {@code workerCount} of 0 records every layer on the calling thread. */
+    public LayerRecorder(int width, int height, int workerCount) {
+        this.width = width;
+        this.height = height;
+        workers = workerCount > 0 ? Executors.newFixedThreadPool(workerCount, new ThreadFactory() {
+            private int count;
+
+            @Override
+            public Thread newThread(Runnable runnable) {
+                Thread thread = new Thread(runnable, "RenderLayer-" + (++count));
+                thread.setDaemon(true);
+                return thread;
+            }
+        }) : null;
+    }
+
+    public int add(Layer layer) {
+        slots.add(new Slot(layer));
+        return slots.size() - 1;
+    }
+
+    public void invalidate(int layer) {
+        slots.get(layer).dirty = true;
+    }
+
+    public void invalidateAll() {
+        for (int i = 0; i < slots.size(); i++) {
+            slots.get(i).dirty = true;
+        }
+    }
+
+    /** Re-records every invalidated layer; concurrently unless {@code parallel} is false. */
+    public void record(boolean parallel) {
+        Slot inline = null;
+        synchronized (lock) {
+            pending = 0;
+            failure = null;
+        }
+        for (int i = 0; i < slots.size(); i++) {
+            Slot slot = slots.get(i);
+            if (!slot.dirty) {
+                continue;
+            }
+            if (!parallel || workers == null) {
+                slot.record();
+            } else if (inline == null) {
+                inline = slot;
+            } else {
+                synchronized (lock) {
+                    pending++;
+                }
+                try {
+                    workers.execute(slot);
+                } catch (RejectedExecutionException e) {
+                    // Shut down mid-frame; finish the frame on this thread.
+                    slot.run();
+                }
+            }
+        }
+        if (inline != null) {
+            inline.record();
+        }
+
+        // Workers are still writing into their Pictures, so an interrupt cannot end the wait early;
+        // it is restored once every slot has finished.
+        boolean interrupted = false;
+        RuntimeException error;
+        synchronized (lock) {
+            while (pending > 0) {
+                try {
+                    lock.wait();
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                }
+            }
+            error = failure;
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+        if (error != null) {
+            throw error;
+        }
+    }
+
+    public void composite(Canvas canvas) {
+        for (int i = 0; i < slots.size(); i++) {
+            Slot slot = slots.get(i);
+            if (slot.recorded) {
+                canvas.drawPicture(slot.picture);
+            }
+        }
+        for (int i = 0; i < slots.size(); i++) {
+            Slot slot = slots.get(i);
+            if (slot.dirty) {
+                slot.dirty = false;
+                slot.layer.onComposited();
+            }
+        }
+    }
+
+    /**
+     * Draws every layer onto {@code canvas} on the calling thread, in order, without recording.
+     * Every layer is left invalidated, so the next {@link #record} does not replay stale Pictures.
+     */
+    public void drawDirect(Canvas canvas) {
+        for (int i = 0; i < slots.size(); i++) {
+            Slot slot = slots.get(i);
+            canvas.save();
+            slot.layer.record(canvas, slot.paint, slot.shaders);
+            canvas.restore();
+            slot.layer.onComposited();
+            slot.dirty = true;
+        }
+    }
+
+    /** Queued layers still finish, so a frame being recorded on another thread completes. */
+    public void shutdown() {
+        if (workers != null) {
+            workers.shutdown();
+        }
+    }
+
+    private void onWorkerDone(RuntimeException error) {
+        synchronized (lock) {
+            if (error != null && failure == null) {
+                failure = error;
+            }
+            pending--;
+            lock.notifyAll();
+        }
+    }
+
+    private class Slot implements Runnable {
+        final Layer layer;
+        final Picture picture = new Picture();
+        final Paint paint = new Paint();
+        final ShaderCache shaders = new ShaderCache();
+        boolean dirty = true;
+        boolean recorded;
+
+        Slot(Layer layer) {
+            this.layer = layer;
+            paint.setAntiAlias(true);
+        }
+
+        void record() {
+            Canvas canvas = picture.beginRecording(width, height);
+            layer.record(canvas, paint, shaders);
+            picture.endRecording();
+            recorded = true;
+        }
+
+        @Override
+        public void run() {
+            RuntimeException error = null;
+            try {
+                record();
+            } catch (RuntimeException e) {
+                error = e;
+            }
+            onWorkerDone(error);
+        }
+    }
+}
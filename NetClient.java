@@ -0,0 +1,146 @@
+package com.space.ship.game;
+
+import java.io.IOException;
+import java.net.DatagramPacket;
+import java.net.DatagramSocket;
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.net.SocketException;
+import java.nio.ByteBuffer;
+
+/**
+ * Client side of a two-player session. A receiver thread decodes snapshots into a history ring;
+ * the game thread sends one input per tick, acknowledging the newest snapshot so the host can
+ * delta against it, and samples the history a couple of ticks in the past for interpolation.
+ */
+class NetClient {
+    private static final int MAX_FALLBACK_TICKS = 8;
+
+    private final DatagramSocket socket;
+    private final Thread receiver;
+    private final SnapshotHistory history = new SnapshotHistory();
+    private final NetStats stats = new NetStats();
+    private final SnapshotAssembler assembler = new SnapshotAssembler();
+    private final ByteBuffer inputBuffer = ByteBuffer.allocate(32);
+    private final DatagramPacket inputPacket = new DatagramPacket(inputBuffer.array(), 0);
+    private volatile SocketAddress server;
+    private int latestTick;
+
+    public NetClient(final String host, final int port) throws SocketException {
+        socket = new DatagramSocket();
+        receiver = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                // Resolved here so a hostname lookup never blocks the UI thread.
+                server = new InetSocketAddress(host, port);
+                receiveLoop();
+            }
+        }, "NetClient");
+        receiver.start();
+    }
+
+    public void sendInput(int seq, float forceX, float forceY, boolean active) {
+        SocketAddress target = server;
+        if (target == null) {
+            return;
+        }
+        inputBuffer.clear();
+        SnapshotCodec.writeInput(inputBuffer, getLatestTick(), seq, forceX, forceY, active);
+        try {
+            inputPacket.setLength(inputBuffer.position());
+            inputPacket.setSocketAddress(target);
+            socket.send(inputPacket);
+        } catch (IOException e) {
+            stats.onSocketError();
+        }
+    }
+
+    public synchronized int getLatestTick() {
+        return latestTick;
+    }
+
+    /** Copies the newest authoritative snapshot into {@code out}; false if none has arrived. */
+    public synchronized boolean copyLatest(WorldSnapshot out) {
+        WorldSnapshot latest = history.get(latestTick);
+        if (latest == null) {
+            return false;
+        }
+        out.copyFrom(latest);
+        return true;
+    }
+
+    /**
+     * Fills {@code out} with the world at fractional {@code renderTick}, blending the two
+     * snapshots around it. Falls back to the newest earlier snapshot when one side was lost.
+     */
+    public synchronized boolean interpolate(float renderTick, WorldSnapshot out) {
+        int base = (int)Math.floor(renderTick);
+        WorldSnapshot from = history.get(base);
+        WorldSnapshot to = history.get(base + 1);
+        if (from != null && to != null) {
+            out.interpolate(from, to, renderTick - base);
+            return true;
+        }
+        for (int tick = base + 1; tick > base - MAX_FALLBACK_TICKS; tick--) {
+            WorldSnapshot snapshot = history.get(tick);
+            if (snapshot != null) {
+                out.copyFrom(snapshot);
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public NetStats getStats() {
+        return stats;
+    }
+
+    public void close() {
+        socket.close();
+        receiver.interrupt();
+    }
+
+    private void receiveLoop() {
+        byte[] data = new byte[SnapshotCodec.MAX_PACKET_BYTES];
+        DatagramPacket packet = new DatagramPacket(data, data.length);
+        while (!socket.isClosed()) {
+            try {
+                packet.setLength(data.length);
+                socket.receive(packet);
+                if (packet.getLength() == 0) {
+                    stats.onDropped();
+                    continue;
+                }
+                ByteBuffer in = ByteBuffer.wrap(data, 0, packet.getLength());
+                byte type = in.get();
+                if (type == SnapshotCodec.PACKET_SNAPSHOT_PART) {
+                    in = assembler.add(in);
+                    if (in == null) {
+                        continue;
+                    }
+                } else if (type != SnapshotCodec.PACKET_SNAPSHOT) {
+                    continue;
+                }
+                int bytes = in.remaining() + 1;
+                long start = System.nanoTime();
+                synchronized (this) {
+                    WorldSnapshot snapshot = SnapshotCodec.readSnapshot(in, history);
+                    if (snapshot == null) {
+                        stats.onDropped();
+                        continue;
+                    }
+                    if (snapshot.tick > latestTick) {
+                        latestTick = snapshot.tick;
+                    }
+                }
+                stats.onDecoded(bytes, System.nanoTime() - start);
+            } catch (IOException e) {
+                if (!socket.isClosed()) {
+                    stats.onSocketError();
+                }
+            } catch (RuntimeException e) {
+                stats.onDropped();
+            }
+        }
+    }
+}
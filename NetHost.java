@@ -0,0 +1,207 @@
+package com.space.ship.game;
+
+import java.io.IOException;
+import java.net.DatagramPacket;
+import java.net.DatagramSocket;
+import java.net.SocketAddress;
+import java.net.SocketException;
+import java.nio.ByteBuffer;
+
+/**
+ * Host side of a two-player session. The game thread captures a snapshot every tick and sends it
+ * delta-compressed against the newest tick the client has acknowledged; a receiver thread
+ * queues the client's inputs in sequence order, and the game thread applies them to the client's
+ * ship one per tick, the same way the client predicts them. The first address to send a valid input
+ * becomes the client, and datagrams from any other address are dropped.
+ */
+class NetHost {
+    static final int INPUT_QUEUE_CAPACITY = 64;
+
+    private final DatagramSocket socket;
+    private final Thread receiver;
+    private final SnapshotHistory history = new SnapshotHistory();
+    private final ByteBuffer sendBuffer = ByteBuffer.allocate(SnapshotCodec.MAX_PACKET_BYTES);
+    private final DatagramPacket sendPacket = new DatagramPacket(sendBuffer.array(), 0);
+    private final ByteBuffer partBuffer = ByteBuffer.allocate(SnapshotCodec.MAX_DATAGRAM_BYTES);
+    private final DatagramPacket partPacket = new DatagramPacket(partBuffer.array(), 0);
+    private final NetStats stats = new NetStats();
+
+    private final Object inputLock = new Object();
+    private SocketAddress client;
+    private int clientAckTick;
+    private final ClientInput[] inputQueue = new ClientInput[INPUT_QUEUE_CAPACITY];
+    private int inputHead, inputCount;
+    private int lastQueuedSeq;
+
+    public NetHost(int port) throws SocketException {
+        for (int i = 0; i < inputQueue.length; i++) {
+            inputQueue[i] = new ClientInput();
+        }
+        socket = new DatagramSocket(port);
+        receiver = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                receiveLoop();
+            }
+        }, "NetHost");
+        receiver.start();
+    }
+
+    public int getLocalPort() {
+        return socket.getLocalPort();
+    }
+
+    /** Returns an empty snapshot for {@code tick} for the caller to fill, then pass to {@link #send}. */
+    public WorldSnapshot beginSnapshot(int tick) {
+        return history.slotFor(tick);
+    }
+
+    public void send(WorldSnapshot snapshot) {
+        SocketAddress target;
+        int ackTick;
+        synchronized (inputLock) {
+            target = client;
+            ackTick = clientAckTick;
+        }
+        if (target == null) {
+            return;
+        }
+
+        long start = System.nanoTime();
+        WorldSnapshot baseline = history.get(ackTick);
+        if (baseline != null && snapshot.tick - ackTick >= SnapshotHistory.CAPACITY) {
+            baseline = null;
+        }
+        sendBuffer.clear();
+        SnapshotCodec.writeSnapshot(snapshot, baseline, sendBuffer);
+        int length = sendBuffer.position();
+        stats.onEncoded(length, System.nanoTime() - start);
+
+        int parts = SnapshotCodec.partCount(length);
+        try {
+            if (parts == 1) {
+                sendPacket.setLength(length);
+                sendPacket.setSocketAddress(target);
+                socket.send(sendPacket);
+                return;
+            }
+            for (int part = 0; part < parts; part++) {
+                partBuffer.clear();
+                SnapshotCodec.writePart(partBuffer, snapshot.tick, sendBuffer.array(), length, part, parts);
+                partPacket.setLength(partBuffer.position());
+                partPacket.setSocketAddress(target);
+                socket.send(partPacket);
+            }
+        } catch (IOException e) {
+            stats.onSocketError();
+        }
+    }
+
+    /** Moves the oldest queued client input into {@code out}; false if none is waiting. */
+    public boolean pollClientInput(ClientInput out) {
+        synchronized (inputLock) {
+            if (inputCount == 0) {
+                return false;
+            }
+            out.copyFrom(inputQueue[inputHead]);
+            inputHead = (inputHead + 1) % INPUT_QUEUE_CAPACITY;
+            inputCount--;
+            return true;
+        }
+    }
+
+    public int getQueuedInputCount() {
+        synchronized (inputLock) {
+            return inputCount;
+        }
+    }
+
+    public boolean hasClient() {
+        synchronized (inputLock) {
+            return client != null;
+        }
+    }
+
+    public NetStats getStats() {
+        return stats;
+    }
+
+    public void close() {
+        socket.close();
+        receiver.interrupt();
+    }
+
+    private void receiveLoop() {
+        byte[] data = new byte[64];
+        DatagramPacket packet = new DatagramPacket(data, data.length);
+        while (!socket.isClosed()) {
+            try {
+                packet.setLength(data.length);
+                socket.receive(packet);
+                SocketAddress sender = packet.getSocketAddress();
+                synchronized (inputLock) {
+                    if (client != null && !client.equals(sender)) {
+                        stats.onDropped();
+                        continue;
+                    }
+                }
+                ByteBuffer in = ByteBuffer.wrap(data, 0, packet.getLength());
+                if (in.get() != SnapshotCodec.PACKET_INPUT) {
+                    continue;
+                }
+                int ackTick = SnapshotCodec.readVarInt(in);
+                int seq = SnapshotCodec.readVarInt(in);
+                float forceX = SnapshotCodec.dequantizeForce(in.get());
+                float forceY = SnapshotCodec.dequantizeForce(in.get());
+                boolean active = in.get() != 0;
+
+                synchronized (inputLock) {
+                    if (client == null) {
+                        client = sender;
+                    } else if (!client.equals(sender)) {
+                        stats.onDropped();
+                        continue;
+                    }
+                    if (ackTick > clientAckTick) {
+                        clientAckTick = ackTick;
+                    }
+                    // Late and duplicate inputs are dropped; the client reconciles past them.
+                    if (seq > lastQueuedSeq) {
+                        if (inputCount == INPUT_QUEUE_CAPACITY) {
+                            inputHead = (inputHead + 1) % INPUT_QUEUE_CAPACITY;
+                            inputCount--;
+                            stats.onDropped();
+                        }
+                        ClientInput input = inputQueue[(inputHead + inputCount) % INPUT_QUEUE_CAPACITY];
+                        input.seq = seq;
+                        input.forceX = forceX;
+                        input.forceY = forceY;
+                        input.active = active;
+                        inputCount++;
+                        lastQueuedSeq = seq;
+                    }
+                }
+            } catch (IOException e) {
+                if (!socket.isClosed()) {
+                    stats.onSocketError();
+                }
+            } catch (RuntimeException e) {
+                stats.onDropped();
+            }
+        }
+    }
+}
+
+/** One tick of the client's stick, as decoded by the host. */
+class ClientInput {
+    int seq;
+    float forceX, forceY;
+    boolean active;
+
+    void copyFrom(ClientInput other) {
+        seq = other.seq;
+        forceX = other.forceX;
+        forceY = other.forceY;
+        active = other.active;
+    }
+}
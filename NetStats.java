@@ -0,0 +1,53 @@
+package com.space.ship.game;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Smoothed per-tick snapshot size and codec timings for one end of a session, plus counts of
+ * dropped packets and socket errors. The net classes never log; the game loop reports these.
+ */
+class NetStats {
+    private static final float SMOOTHING = 0.05f;
+
+    // Each average has one writer: the host encodes on the game thread, the client decodes on its
+    // receiver. The counters are bumped from both threads.
+    private volatile float bytesPerTick;
+    private volatile float encodeMicros;
+    private volatile float decodeMicros;
+    private final AtomicLong packets = new AtomicLong();
+    private final AtomicLong droppedPackets = new AtomicLong();
+    private final AtomicLong socketErrors = new AtomicLong();
+
+    void onEncoded(int bytes, long nanos) {
+        bytesPerTick += (bytes - bytesPerTick) * SMOOTHING;
+        encodeMicros += (nanos / 1000f - encodeMicros) * SMOOTHING;
+        packets.incrementAndGet();
+    }
+
+    void onDecoded(int bytes, long nanos) {
+        bytesPerTick += (bytes - bytesPerTick) * SMOOTHING;
+        decodeMicros += (nanos / 1000f - decodeMicros) * SMOOTHING;
+        packets.incrementAndGet();
+    }
+
+    void onDropped() {
+        droppedPackets.incrementAndGet();
+    }
+
+    void onSocketError() {
+        socketErrors.incrementAndGet();
+    }
+
+    public float getBytesPerTick() { return bytesPerTick; }
+    public float getEncodeMicros() { return encodeMicros; }
+    public float getDecodeMicros() { return decodeMicros; }
+    public long getPackets() { return packets.get(); }
+    public long getDroppedPackets() { return droppedPackets.get(); }
+    public long getSocketErrors() { return socketErrors.get(); }
+
+    @Override
+    public String toString() {
+        return String.format("%.0f B/tick, encode %.1f us, decode %.1f us, %d packets, %d dropped, %d socket errors",
+            bytesPerTick, encodeMicros, decodeMicros, packets.get(), droppedPackets.get(), socketErrors.get());
+    }
+}
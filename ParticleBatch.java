@@ -0,0 +1,172 @@
+package com.space.ship.game;
+
+import android.graphics.Bitmap;
+import android.graphics.BitmapShader;
+import android.graphics.Canvas;
+import android.graphics.Color;
+import android.graphics.Paint;
+import android.graphics.RadialGradient;
+import android.graphics.Shader;
+
+/**
+ * Collects particle sprites into reusable vertex, texture-coordinate and colour arrays and submits
+ * them with a single {@link Canvas#drawVertices} call. Every sprite is a quad sampling a pre-baked
+ * white soft-circle texture, tinted by its vertex colour. The texture lives in the
+ * {@link RenderCacheManager} and is pinned between {@link #begin} and {@link #end}.
+ */
+class ParticleBatch implements RenderCacheManager.Warmer {
+    private static final String TEXTURE_KEY = "particle.softCircle";
+    private static final int TEXTURE_SIZE = 64;
+    private static final int INITIAL_SPRITES = 256;
+    // Indices are shorts, so one call can address at most 32767 vertices.
+    private static final int MAX_SPRITES = Short.MAX_VALUE / 4;
+
+    private final RenderCacheManager cache;
+    private final Paint paint;
+    private Bitmap boundTexture;
+    private float[] verts;
+    private float[] texs;
+    private int[] colors;
+    private short[] indices;
+    private int capacity;
+    private int count;
+    private Canvas canvas;
+    private FillRateMeter fillMeter;
+    private boolean deferRelease;
+    private boolean pinned;
+
+    public ParticleBatch(RenderCacheManager cache) {
+        this.cache = cache;
+        paint = new Paint();
+        paint.setFilterBitmap(true);
+        ensureCapacity(INITIAL_SPRITES);
+        cache.addWarmer(this);
+    }
+
+    @Override
+    public void warm(RenderCacheManager cache) {
+        if (!cache.contains(TEXTURE_KEY)) {
+            cache.put(TEXTURE_KEY, createTexture());
+        }
+    }
+
+    private static Bitmap createTexture() {
+        Bitmap texture = Bitmap.createBitmap(TEXTURE_SIZE, TEXTURE_SIZE, Bitmap.Config.ARGB_8888);
+        Canvas textureCanvas = new Canvas(texture);
+        Paint texturePaint = new Paint(Paint.ANTI_ALIAS_FLAG);
+        float center = TEXTURE_SIZE / 2f;
+        texturePaint.setShader(new RadialGradient(center, center, center,
+            new int[] { Color.WHITE, Color.WHITE, Color.TRANSPARENT },
+            new float[] { 0f, 0.85f, 1f },
+            Shader.TileMode.CLAMP));
+        textureCanvas.drawCircle(center, center, center, texturePaint);
+        return texture;
+    }
+
+    public void begin(Canvas canvas) {
+        this.canvas = canvas;
+        count = 0;
+
+        releaseTexture();
+        Bitmap texture = cache.acquire(TEXTURE_KEY);
+        if (texture == null) {
+            texture = cache.putAndAcquire(TEXTURE_KEY, createTexture());
+        }
+        if (texture != boundTexture) {
+            paint.setShader(new BitmapShader(texture, Shader.TileMode.CLAMP, Shader.TileMode.CLAMP));
+            boundTexture = texture;
+        }
+        pinned = true;
+    }
+
+    /**
+     * When set, {@link #end} keeps the texture pinned until {@link #releaseTexture}, for canvases
+     * that are recorded now and played back later.
+     */
+    public void setDeferRelease(boolean defer) {
+        deferRelease = defer;
+    }
+
+    public void releaseTexture() {
+        if (pinned) {
+            cache.release(TEXTURE_KEY);
+            pinned = false;
+        }
+    }
+
+    /** While set, every sprite's quad is also reported to {@code meter}. */
+    public void setFillMeter(FillRateMeter meter) {
+        fillMeter = meter;
+    }
+
+    public void add(float x, float y, float radius, int color) {
+        if (fillMeter != null) {
+            fillMeter.rect(x - radius, y - radius, x + radius, y + radius);
+        }
+        if (count == capacity) {
+            if (capacity < MAX_SPRITES) {
+                ensureCapacity(Math.min(MAX_SPRITES, capacity * 2));
+            } else {
+                flush();
+            }
+        }
+        int v = count * 8;
+        verts[v] = x - radius;     verts[v + 1] = y - radius;
+        verts[v + 2] = x + radius; verts[v + 3] = y - radius;
+        verts[v + 4] = x + radius; verts[v + 5] = y + radius;
+        verts[v + 6] = x - radius; verts[v + 7] = y + radius;
+        int c = count * 4;
+        colors[c] = color;
+        colors[c + 1] = color;
+        colors[c + 2] = color;
+        colors[c + 3] = color;
+        count++;
+    }
+
+    public void end() {
+        flush();
+        canvas = null;
+        if (!deferRelease) {
+            releaseTexture();
+        }
+    }
+
+    private void flush() {
+        if (count > 0) {
+            canvas.drawVertices(Canvas.VertexMode.TRIANGLES, count * 8, verts, 0,
+                texs, 0, colors, 0, indices, 0, count * 6, paint);
+            count = 0;
+        }
+    }
+
+    private void ensureCapacity(int sprites) {
+        float[] newVerts = new float[sprites * 8];
+        int[] newColors = new int[sprites * 4];
+        if (verts != null) {
+            System.arraycopy(verts, 0, newVerts, 0, count * 8);
+            System.arraycopy(colors, 0, newColors, 0, count * 4);
+        }
+        verts = newVerts;
+        colors = newColors;
+
+        // Texture coordinates and indices are identical for every quad, so they are built once.
+        texs = new float[sprites * 8];
+        indices = new short[sprites * 6];
+        for (int i = 0; i < sprites; i++) {
+            int t = i * 8;
+            texs[t] = 0;                texs[t + 1] = 0;
+            texs[t + 2] = TEXTURE_SIZE; texs[t + 3] = 0;
+            texs[t + 4] = TEXTURE_SIZE; texs[t + 5] = TEXTURE_SIZE;
+            texs[t + 6] = 0;            texs[t + 7] = TEXTURE_SIZE;
+            int n = i * 6;
+            short base = (short)(i * 4);
+            indices[n] = base;
+            indices[n + 1] = (short)(base + 1);
+            indices[n + 2] = (short)(base + 2);
+            indices[n + 3] = base;
+            indices[n + 4] = (short)(base + 2);
+            indices[n + 5] = (short)(base + 3);
+        }
+        capacity = sprites;
+    }
+}
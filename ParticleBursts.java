@@ -0,0 +1,207 @@
+package com.space.ship.game;
+
+import android.graphics.Color;
+
+/**
+ * Particle bursts stored as per-burst parameters only. A burst particle follows the same motion as
+ * {@link Particle} ({@code x += vx; vx *= 0.98f} per tick), which has the closed form
+ * {@code x0 + vx0 * (1 - 0.98^k) / 0.02}, so positions, sizes and alpha are evaluated at draw time
+ * from the elapsed ticks and a per-particle hash. Updating is O(bursts), not O(particles).
+ */
+class ParticleBursts {
+    static final int KIND_EXPLOSION = 0;
+    static final int KIND_IMPACT = 1;
+
+    private static final float DRAG = 0.98f;
+    private static final int MAX_LIFE = 50;
+    private static final int DIRECTIONS = 256;
+    private static final float[] COS = new float[DIRECTIONS];
+    private static final float[] SIN = new float[DIRECTIONS];
+    private static final float[] TRAVEL = new float[MAX_LIFE + 1];
+
+    static {
+        for (int i = 0; i < DIRECTIONS; i++) {
+            double angle = i * 2 * Math.PI / DIRECTIONS;
+            COS[i] = (float)Math.cos(angle);
+            SIN[i] = (float)Math.sin(angle);
+        }
+        float decay = 1f;
+        for (int k = 0; k <= MAX_LIFE; k++) {
+            TRAVEL[k] = (1f - decay) / (1f - DRAG);
+            decay *= DRAG;
+        }
+    }
+
+    private float[] originX = new float[16];
+    private float[] originY = new float[16];
+    private int[] spawnTick = new int[16];
+    private int[] seed = new int[16];
+    private int[] count = new int[16];
+    private int[] color = new int[16];
+    private byte[] kind = new byte[16];
+    private int[] id = new int[16];
+    private int size;
+    private int liveParticles;
+    private int nextId;
+
+    public void add(int burstKind, float x, float y, int particles, int burstColor, int burstSeed, int tick) {
+        add(nextId++, burstKind, x, y, particles, burstColor, burstSeed, tick);
+    }
+
+    private void add(int burstId, int burstKind, float x, float y, int particles, int burstColor,
+                     int burstSeed, int tick) {
+        if (size == originX.length) {
+            grow();
+        }
+        id[size] = burstId;
+        originX[size] = x;
+        originY[size] = y;
+        spawnTick[size] = tick;
+        seed[size] = burstSeed;
+        count[size] = particles;
+        color[size] = burstColor;
+        kind[size] = (byte)burstKind;
+        size++;
+        liveParticles += particles;
+    }
+
+    public void update(int tick) {
+        for (int i = size - 1; i >= 0; i--) {
+            if (tick - spawnTick[i] >= maxLife(kind[i])) {
+                liveParticles -= count[i];
+                size--;
+                originX[i] = originX[size];
+                originY[i] = originY[size];
+                spawnTick[i] = spawnTick[size];
+                seed[i] = seed[size];
+                count[i] = count[size];
+                color[i] = color[size];
+                kind[i] = kind[size];
+                id[i] = id[size];
+            }
+        }
+    }
+
+    public void clear() {
+        size = 0;
+        liveParticles = 0;
+    }
+
+    /** Writes every live burst into {@code table}; the bursts are deterministic from these fields. */
+    public void capture(EntityTable table) {
+        table.clear();
+        for (int b = 0; b < size; b++) {
+            int row = table.add(id[b]);
+            table.set(row, WorldSnapshot.BURST_X, WorldSnapshot.quantizePosition(originX[b]));
+            table.set(row, WorldSnapshot.BURST_Y, WorldSnapshot.quantizePosition(originY[b]));
+            table.set(row, WorldSnapshot.BURST_SPAWN_TICK, spawnTick[b]);
+            table.set(row, WorldSnapshot.BURST_SEED, seed[b]);
+            table.set(row, WorldSnapshot.BURST_COUNT, count[b]);
+            table.set(row, WorldSnapshot.BURST_COLOR, color[b]);
+            table.set(row, WorldSnapshot.BURST_KIND, kind[b]);
+        }
+        table.sortById();
+    }
+
+    /** Replaces all bursts with the rows of {@code table}, as captured on the host. */
+    public void restore(EntityTable table) {
+        clear();
+        for (int row = 0; row < table.size; row++) {
+            add(table.ids[row],
+                table.get(row, WorldSnapshot.BURST_KIND),
+                table.get(row, WorldSnapshot.BURST_X) / WorldSnapshot.POSITION_SCALE,
+                table.get(row, WorldSnapshot.BURST_Y) / WorldSnapshot.POSITION_SCALE,
+                table.get(row, WorldSnapshot.BURST_COUNT),
+                table.get(row, WorldSnapshot.BURST_COLOR),
+                table.get(row, WorldSnapshot.BURST_SEED),
+                table.get(row, WorldSnapshot.BURST_SPAWN_TICK));
+        }
+    }
+
+    public void draw(ParticleBatch batch, Camera camera, int tick) {
+        for (int b = 0; b < size; b++) {
+            int elapsed = tick - spawnTick[b];
+            boolean explosion = kind[b] == KIND_EXPLOSION;
+            float maxSpeed = explosion ? 10f : 5f;
+            float maxSize = explosion ? 7f : 4f;
+            float travel = TRAVEL[Math.min(elapsed, MAX_LIFE)];
+            if (!camera.isVisible(originX[b], originY[b], maxSpeed * travel + maxSize * 2)) {
+                continue;
+            }
+
+            int burstColor = color[b];
+            int red = Color.red(burstColor);
+            int green = Color.green(burstColor);
+            int blue = Color.blue(burstColor);
+            for (int i = 0; i < count[b]; i++) {
+                int h = hash(seed[b] + i * 0x9E3779B9);
+                int life = explosion ? 20 + (h >>> 24) % 30 : 10 + (h >>> 24) % 20;
+                if (elapsed >= life) {
+                    continue;
+                }
+                float speedFraction = ((h >>> 8) & 0xFF) / 255f;
+                float sizeFraction = ((h >>> 16) & 0xFF) / 255f;
+                float speed = explosion ? 2 + speedFraction * 8 : 1 + speedFraction * 4;
+                float particleSize = explosion ? 2 + sizeFraction * 5 : 1 + sizeFraction * 3;
+
+                int direction = h & (DIRECTIONS - 1);
+                float distance = speed * travel;
+                float x = originX[b] + COS[direction] * distance;
+                float y = originY[b] + SIN[direction] * distance;
+
+                float lifeRatio = (float)(life - elapsed) / life;
+                int alpha = (int)(255 * lifeRatio);
+                batch.add(x, y, particleSize * lifeRatio, Color.argb(alpha, red, green, blue));
+                batch.add(x, y, particleSize * lifeRatio * 2, Color.argb(alpha / 2, 255, 255, 255));
+            }
+        }
+    }
+
+    public int getBurstCount() {
+        return size;
+    }
+
+    /** Particles owned by live bursts, including ones whose individual lifetime has already ended. */
+    public int getParticleCount() {
+        return liveParticles;
+    }
+
+    private static int maxLife(int burstKind) {
+        return burstKind == KIND_EXPLOSION ? 50 : 30;
+    }
+
+    private static int hash(int h) {
+        h ^= h >>> 16;
+        h *= 0x85EBCA6B;
+        h ^= h >>> 13;
+        h *= 0xC2B2AE35;
+        h ^= h >>> 16;
+        return h;
+    }
+
+    private void grow() {
+        int capacity = originX.length * 2;
+        originX = copyOf(originX, capacity);
+        originY = copyOf(originY, capacity);
+        spawnTick = copyOf(spawnTick, capacity);
+        seed = copyOf(seed, capacity);
+        count = copyOf(count, capacity);
+        color = copyOf(color, capacity);
+        id = copyOf(id, capacity);
+        byte[] newKind = new byte[capacity];
+        System.arraycopy(kind, 0, newKind, 0, size);
+        kind = newKind;
+    }
+
+    private float[] copyOf(float[] array, int capacity) {
+        float[] copy = new float[capacity];
+        System.arraycopy(array, 0, copy, 0, size);
+        return copy;
+    }
+
+    private int[] copyOf(int[] array, int capacity) {
+        int[] copy = new int[capacity];
+        System.arraycopy(array, 0, copy, 0, size);
+        return copy;
+    }
+}
@@ -2,7 +2,6 @@ package com.space.ship.game;
 
 import android.graphics.Canvas;
 import android.graphics.Color;
-import android.graphics.Paint;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Random;
@@ -10,13 +9,30 @@ import java.util.Random;
 class ParticleSystem {
     private List<Particle> particles;
     private Random random;
+    private ParticleBatch batch;
+    private ParticleBursts bursts;
+    private boolean burstMode;
+    private int tick;
     
-    public ParticleSystem() {
+    public ParticleSystem(RenderCacheManager renderCache) {
         particles = new ArrayList<>();
         random = new Random();
+        batch = new ParticleBatch(renderCache);
+        bursts = new ParticleBursts();
+    }
+    
+    /** When enabled, new effects are stored as analytic bursts instead of individual particles. */
+    public void setBurstMode(boolean enabled) {
+        burstMode = enabled;
     }
     
     public void createExplosion(float x, float y, int count, int baseColor) {
+        if (burstMode) {
+            bursts.add(ParticleBursts.KIND_EXPLOSION, x, y, count,
+                Color.argb(255, Color.red(baseColor), Color.green(baseColor), Color.blue(baseColor)),
+                random.nextInt(), tick);
+            return;
+        }
         for (int i = 0; i < count; i++) {
             float angle = random.nextFloat() * 360;
             float speed = 2 + random.nextFloat() * 8;
@@ -39,6 +55,15 @@ class ParticleSystem {
     }
     
     public void createImpact(float x, float y, int count, int baseColor) {
+        if (burstMode) {
+            bursts.add(ParticleBursts.KIND_IMPACT, x, y, count,
+                Color.argb(255,
+                    Math.min(255, Color.red(baseColor) + 50),
+                    Math.min(255, Color.green(baseColor) + 50),
+                    Math.min(255, Color.blue(baseColor) + 50)),
+                random.nextInt(), tick);
+            return;
+        }
         for (int i = 0; i < count; i++) {
             float angle = random.nextFloat() * 360;
             float speed = 1 + random.nextFloat() * 4;
@@ -61,6 +86,8 @@ class ParticleSystem {
     }
     
     public void update() {
+        tick++;
+        bursts.update(tick);
         for (int i = particles.size() - 1; i >= 0; i--) {
             Particle p = particles.get(i);
             p.update();
@@ -70,10 +97,45 @@ class ParticleSystem {
         }
     }
     
-    public void draw(Canvas canvas, Paint paint) {
-        for (Particle p : particles) {
-            p.draw(canvas, paint);
+    public int getTick() {
+        return tick;
+    }
+    
+    public void captureBursts(EntityTable table) {
+        bursts.capture(table);
+    }
+    
+    /** Shows the host's bursts on a client; they are evaluated at the host's particle tick. */
+    public void replaceBursts(EntityTable table, int hostTick) {
+        tick = hostTick;
+        bursts.restore(table);
+    }
+    
+    public int getParticleCount() {
+        return particles.size() + bursts.getParticleCount();
+    }
+    
+    /** See {@link ParticleBatch#setDeferRelease}. */
+    public void setDeferTextureRelease(boolean defer) {
+        batch.setDeferRelease(defer);
+    }
+    
+    public void releaseTexture() {
+        batch.releaseTexture();
+    }
+    
+    public void draw(Canvas canvas, Camera camera, FillRateMeter meter) {
+        batch.setFillMeter(meter);
+        batch.begin(canvas);
+        for (int i = 0; i < particles.size(); i++) {
+            Particle p = particles.get(i);
+            if (camera.isVisible(p.getX(), p.getY(), p.getHaloRadius())) {
+                p.addTo(batch);
+            }
         }
+        bursts.draw(batch, camera, tick);
+        batch.end();
+        batch.setFillMeter(null);
     }
 }
 
@@ -104,20 +166,24 @@ class Particle {
         life--;
     }
     
-    public void draw(Canvas canvas, Paint paint) {
+    public void addTo(ParticleBatch batch) {
         float lifeRatio = (float)life / maxLife;
         int alpha = (int)(255 * lifeRatio);
         int particleColor = Color.argb(alpha, 
             Color.red(color), Color.green(color), Color.blue(color));
         
-        paint.setColor(particleColor);
-        canvas.drawCircle(x, y, size * lifeRatio, paint);
-        
-        paint.setColor(Color.argb(alpha/2, 255, 255, 255));
-        canvas.drawCircle(x, y, size * lifeRatio * 2, paint);
+        batch.add(x, y, size * lifeRatio, particleColor);
+        batch.add(x, y, size * lifeRatio * 2, Color.argb(alpha/2, 255, 255, 255));
     }
     
     public boolean isDead() {
         return life <= 0;
     }
+    
+    public float getX() { return x; }
+    public float getY() { return y; }
+    
+    public float getHaloRadius() {
+        return size * 2;
+    }
 }
@@ -0,0 +1,187 @@
+package com.space.ship.game;
+
+import android.app.ActivityManager;
+import android.content.ComponentCallbacks2;
+import android.content.Context;
+import android.graphics.Bitmap;
+import android.util.Log;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Owns every cached bitmap used for rendering under one byte budget. Entries are evicted least
+ * recently used first; entries pinned with {@link #acquire} are never evicted or recycled until
+ * they are released. Warmers rebuild the common entries off the render thread after a trim.
+ */
+class RenderCacheManager {
+    interface Warmer {
+        void warm(RenderCacheManager cache);
+    }
+
+    private static final String TAG = "RenderCache";
+
+    private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private final List<Warmer> warmers = new ArrayList<>();
+    private final ExecutorService warmExecutor = Executors.newSingleThreadExecutor();
+    private final long maxBytes;
+    private long currentBytes;
+    private long hits, misses, evictions;
+
+    public RenderCacheManager(long maxBytes) {
+        this.maxBytes = maxBytes;
+    }
+
+    /** Budget of 1/8 of the app's heap class, or 1/16 on low-RAM devices. */
+    public static RenderCacheManager forDevice(Context context) {
+        ActivityManager activityManager =
+            (ActivityManager)context.getSystemService(Context.ACTIVITY_SERVICE);
+        long heapBytes = activityManager.getMemoryClass() * 1024L * 1024L;
+        return new RenderCacheManager(heapBytes / (activityManager.isLowRamDevice() ? 16 : 8));
+    }
+
+    /** Returns the cached bitmap pinned for use, or null on a miss. Pair with {@link #release}. */
+    public synchronized Bitmap acquire(String key) {
+        Entry entry = entries.get(key);
+        if (entry == null) {
+            misses++;
+            return null;
+        }
+        hits++;
+        entry.pins++;
+        return entry.bitmap;
+    }
+
+    public synchronized void release(String key) {
+        Entry entry = entries.get(key);
+        if (entry != null && entry.pins > 0) {
+            entry.pins--;
+        }
+    }
+
+    public synchronized boolean contains(String key) {
+        return entries.containsKey(key);
+    }
+
+    /** Caches {@code bitmap} unpinned. If the key is already cached the new bitmap is recycled. */
+    public synchronized void put(String key, Bitmap bitmap) {
+        if (entries.containsKey(key)) {
+            bitmap.recycle();
+            return;
+        }
+        insert(key, bitmap, 0);
+    }
+
+    /**
+     * Caches {@code bitmap} and pins it. If another thread cached the key first, the new bitmap is
+     * recycled and the existing one is pinned and returned instead.
+     */
+    public synchronized Bitmap putAndAcquire(String key, Bitmap bitmap) {
+        Entry existing = entries.get(key);
+        if (existing != null) {
+            bitmap.recycle();
+            existing.pins++;
+            return existing.bitmap;
+        }
+        insert(key, bitmap, 1);
+        return bitmap;
+    }
+
+    public void addWarmer(Warmer warmer) {
+        synchronized (warmers) {
+            warmers.add(warmer);
+        }
+    }
+
+    public void warmAsync() {
+        warmExecutor.execute(new Runnable() {
+            @Override
+            public void run() {
+                warmNow();
+            }
+        });
+    }
+
+    /** Runs every warmer on the calling thread. */
+    public void warmNow() {
+        List<Warmer> snapshot;
+        synchronized (warmers) {
+            snapshot = new ArrayList<>(warmers);
+        }
+        for (Warmer warmer : snapshot) {
+            warmer.warm(this);
+        }
+    }
+
+    public void onTrimMemory(int level) {
+        if (level >= ComponentCallbacks2.TRIM_MEMORY_UI_HIDDEN) {
+            releaseAll();
+        } else if (level >= ComponentCallbacks2.TRIM_MEMORY_RUNNING_CRITICAL) {
+            trimToSize(maxBytes / 4);
+        } else if (level >= ComponentCallbacks2.TRIM_MEMORY_RUNNING_LOW) {
+            trimToSize(maxBytes / 2);
+        }
+    }
+
+    /** Drops every unpinned entry. */
+    public void releaseAll() {
+        trimToSize(0);
+    }
+
+    public synchronized void trimToSize(long targetBytes) {
+        Iterator<Map.Entry<String, Entry>> iterator = entries.entrySet().iterator();
+        while (currentBytes > targetBytes && iterator.hasNext()) {
+            Entry entry = iterator.next().getValue();
+            if (entry.pins > 0) {
+                continue;
+            }
+            iterator.remove();
+            currentBytes -= entry.bytes;
+            entry.bitmap.recycle();
+            evictions++;
+        }
+    }
+
+    public void shutdown() {
+        warmExecutor.shutdownNow();
+    }
+
+    public synchronized long getSizeBytes() { return currentBytes; }
+    public long getMaxBytes() { return maxBytes; }
+    public synchronized long getHits() { return hits; }
+    public synchronized long getMisses() { return misses; }
+    public synchronized long getEvictions() { return evictions; }
+
+    @Override
+    public synchronized String toString() {
+        return "RenderCache[" + entries.size() + " entries, " + currentBytes / 1024 + "/"
+            + maxBytes / 1024 + " KB, hits=" + hits + " misses=" + misses
+            + " evictions=" + evictions + "]";
+    }
+
+    private void insert(String key, Bitmap bitmap, int pins) {
+        Entry entry = new Entry(bitmap, bitmap.getAllocationByteCount(), pins);
+        entries.put(key, entry);
+        currentBytes += entry.bytes;
+        trimToSize(maxBytes);
+        if (currentBytes > maxBytes) {
+            Log.w(TAG, "Pinned entries exceed budget: " + this);
+        }
+    }
+
+    private static class Entry {
+        final Bitmap bitmap;
+        final int bytes;
+        int pins;
+
+        Entry(Bitmap bitmap, int bytes, int pins) {
+            this.bitmap = bitmap;
+            this.bytes = bytes;
+            this.pins = pins;
+        }
+    }
+}
@@ -0,0 +1,58 @@
+package com.space.ship.game;
+
+/**
+ * Picks the render-surface scale from measured frame work time. The scale drops quickly when
+ * frames run over budget and climbs back slowly when there is headroom, within configured bounds.
+ */
+class ResolutionScaler {
+    private static final float STEP = 0.1f;
+    private static final float SMOOTHING = 0.1f;
+    private static final float OVER_BUDGET = 0.85f;
+    private static final float UNDER_BUDGET = 0.6f;
+    private static final int FRAMES_BEFORE_DOWNSCALE = 30;
+    private static final int FRAMES_BEFORE_UPSCALE = 180;
+
+    private final float minScale, maxScale;
+    private final long budgetNanos;
+    private float scale;
+    private float averageNanos;
+    private int overBudgetFrames;
+    private int underBudgetFrames;
+
+    public ResolutionScaler(float minScale, float maxScale, long budgetNanos) {
+        this.minScale = minScale;
+        this.maxScale = maxScale;
+        this.budgetNanos = budgetNanos;
+        this.scale = maxScale;
+        this.averageNanos = budgetNanos * UNDER_BUDGET;
+    }
+
+    /** Feeds one frame's update+draw time; returns true when the scale changed. */
+    public boolean onFrame(long workNanos) {
+        averageNanos += (workNanos - averageNanos) * SMOOTHING;
+
+        if (averageNanos > budgetNanos * OVER_BUDGET) {
+            underBudgetFrames = 0;
+            if (++overBudgetFrames >= FRAMES_BEFORE_DOWNSCALE && scale > minScale) {
+                overBudgetFrames = 0;
+                scale = Math.max(minScale, scale - STEP);
+                return true;
+            }
+        } else if (averageNanos < budgetNanos * UNDER_BUDGET) {
+            overBudgetFrames = 0;
+            if (++underBudgetFrames >= FRAMES_BEFORE_UPSCALE && scale < maxScale) {
+                underBudgetFrames = 0;
+                scale = Math.min(maxScale, scale + STEP);
+                return true;
+            }
+        } else {
+            overBudgetFrames = 0;
+            underBudgetFrames = 0;
+        }
+        return false;
+    }
+
+    public float getScale() {
+        return scale;
+    }
+}
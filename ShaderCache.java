@@ -0,0 +1,59 @@
+package com.space.ship.game;
+
+import android.graphics.Canvas;
+import android.graphics.Paint;
+import android.graphics.RadialGradient;
+import android.graphics.Shader;
+import android.util.LongSparseArray;
+
+/**
+ * Two-stop radial gradients built once in unit space (centre 0,0, radius 1) and keyed by their
+ * colour stops. A gradient's local matrix is never touched, since changing it makes the framework
+ * rebuild the native shader; circles are placed by translating and scaling the canvas instead,
+ * so once every key has been seen, drawing creates no shaders on either the Java or native side.
+ * Callers quantise animated colours with {@link #quantize} to keep the key set small. Not
+ * thread-safe; use one cache per thread.
+ */
+class ShaderCache {
+    private final LongSparseArray<RadialGradient> radials = new LongSparseArray<>();
+
+    /** Fills a circle of {@code radius} at (x, y) with the gradient reaching {@code edgeColor} at its rim. */
+    public void fillCircle(Canvas canvas, Paint paint, int centerColor, int edgeColor,
+                           float x, float y, float radius) {
+        fillCircle(canvas, paint, centerColor, edgeColor, x, y, radius, radius);
+    }
+
+    /** As above, but the gradient reaches {@code edgeColor} at {@code gradientRadius}. Leaves no shader on {@code paint}. */
+    public void fillCircle(Canvas canvas, Paint paint, int centerColor, int edgeColor,
+                           float x, float y, float gradientRadius, float circleRadius) {
+        if (gradientRadius <= 0 || circleRadius <= 0) {
+            return;
+        }
+        paint.setShader(gradient(centerColor, edgeColor));
+        canvas.save();
+        canvas.translate(x, y);
+        canvas.scale(gradientRadius, gradientRadius);
+        canvas.drawCircle(0, 0, circleRadius / gradientRadius, paint);
+        canvas.restore();
+        paint.setShader(null);
+    }
+
+    private RadialGradient gradient(int centerColor, int edgeColor) {
+        long key = ((long)centerColor << 32) | (edgeColor & 0xFFFFFFFFL);
+        RadialGradient gradient = radials.get(key);
+        if (gradient == null) {
+            gradient = new RadialGradient(0, 0, 1, centerColor, edgeColor, Shader.TileMode.CLAMP);
+            radials.put(key, gradient);
+        }
+        return gradient;
+    }
+
+    public int size() {
+        return radials.size();
+    }
+
+    /** Snaps {@code value} in [0, 1] to one of {@code buckets} evenly spaced levels. */
+    static float quantize(float value, int buckets) {
+        return Math.round(value * (buckets - 1)) / (float)(buckets - 1);
+    }
+}
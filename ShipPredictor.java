@@ -0,0 +1,61 @@
+package com.space.ship.game;
+
+/**
+ * Client-side prediction for the local ship in a joined session. Each tick's stick is quantised
+ * the way it travels to the host and applied through a joystick with the host's geometry, so
+ * replaying the inputs the host has not applied yet retraces what the host will simulate.
+ */
+class ShipPredictor {
+    static final int HISTORY = 64;
+
+    private final SpaceShip ship;
+    private final VirtualJoystick joystick = new VirtualJoystick(0, 0, 1);
+    private final byte[] forceX = new byte[HISTORY];
+    private final byte[] forceY = new byte[HISTORY];
+    private final boolean[] active = new boolean[HISTORY];
+    private int seq;
+
+    public ShipPredictor(SpaceShip ship) {
+        this.ship = ship;
+    }
+
+    /** Records this tick's input and advances the ship with it; returns the input's sequence number. */
+    public int step(float stickX, float stickY, boolean stickActive) {
+        seq++;
+        int slot = seq % HISTORY;
+        forceX[slot] = SnapshotCodec.quantizeForce(stickX);
+        forceY[slot] = SnapshotCodec.quantizeForce(stickY);
+        active[slot] = stickActive;
+        apply(slot);
+        return seq;
+    }
+
+    /**
+     * Snaps the ship to the host's state for {@code shipId}, then replays every input after the
+     * one that state includes. Returns false if the snapshot has no row for the ship.
+     */
+    public boolean reconcile(EntityTable ships, int shipId) {
+        int row = ships.indexOf(shipId);
+        if (row < 0) {
+            return false;
+        }
+        ship.setState(
+            ships.get(row, WorldSnapshot.SHIP_X) / WorldSnapshot.POSITION_SCALE,
+            ships.get(row, WorldSnapshot.SHIP_Y) / WorldSnapshot.POSITION_SCALE,
+            ships.get(row, WorldSnapshot.SHIP_VX) / WorldSnapshot.VELOCITY_SCALE,
+            ships.get(row, WorldSnapshot.SHIP_VY) / WorldSnapshot.VELOCITY_SCALE,
+            ships.get(row, WorldSnapshot.SHIP_HEALTH));
+
+        int acked = ships.get(row, WorldSnapshot.SHIP_INPUT_SEQ);
+        for (int replay = Math.max(acked + 1, seq - HISTORY + 1); replay <= seq; replay++) {
+            apply(replay % HISTORY);
+        }
+        return true;
+    }
+
+    private void apply(int slot) {
+        joystick.setForce(active[slot],
+            SnapshotCodec.dequantizeForce(forceX[slot]), SnapshotCodec.dequantizeForce(forceY[slot]));
+        ship.update(joystick);
+    }
+}
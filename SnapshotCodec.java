@@ -0,0 +1,321 @@
+package com.space.ship.game;
+
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+
+/**
+ * Wire format for host/client packets. Snapshots are delta-compressed against a baseline the
+ * client has acknowledged: per table only new or changed rows are written, as a varint id gap,
+ * a changed-field mask and zigzag varint field deltas, followed by the ids of removed rows.
+ * Without a baseline every row is written in full. Snapshots larger than one datagram under the
+ * path MTU are split into parts that {@link SnapshotAssembler} puts back together, rather than
+ * leaving it to IP fragmentation.
+ */
+final class SnapshotCodec {
+    static final byte PACKET_INPUT = 1;
+    static final byte PACKET_SNAPSHOT = 2;
+    static final byte PACKET_SNAPSHOT_PART = 3;
+    static final int MAX_PACKET_BYTES = 65507;
+    // Safe payload for typical internet paths once IP and UDP headers are added.
+    static final int MAX_DATAGRAM_BYTES = 1200;
+    // Part header: type byte, tick varint of up to five bytes, part index, part count.
+    static final int PART_PAYLOAD_BYTES = MAX_DATAGRAM_BYTES - 8;
+    static final int MAX_PARTS = (MAX_PACKET_BYTES + PART_PAYLOAD_BYTES - 1) / PART_PAYLOAD_BYTES;
+
+    private SnapshotCodec() {
+    }
+
+    static void writeSnapshot(WorldSnapshot current, WorldSnapshot baseline, ByteBuffer out) {
+        out.put(PACKET_SNAPSHOT);
+        writeVarInt(out, current.tick);
+        writeVarInt(out, baseline != null ? baseline.tick : 0);
+        writeVarInt(out, current.particleTick);
+        writeVarInt(out, current.level);
+        writeVarInt(out, current.score);
+        writeVarInt(out, current.destroyedPlanets);
+        writeVarLong(out, current.coins);
+        writeTable(out, current.ships, baseline != null ? baseline.ships : null);
+        writeTable(out, current.enemies, baseline != null ? baseline.enemies : null);
+        writeTable(out, current.planets, baseline != null ? baseline.planets : null);
+        writeTable(out, current.bursts, baseline != null ? baseline.bursts : null);
+    }
+
+    /**
+     * Decodes a snapshot packet (after its type byte) into the history slot for its tick.
+     * Returns null if the packet references a baseline that is no longer available or is corrupt.
+     */
+    static WorldSnapshot readSnapshot(ByteBuffer in, SnapshotHistory history) {
+        WorldSnapshot snapshot = null;
+        try {
+            int tick = readVarInt(in);
+            int baselineTick = readVarInt(in);
+            WorldSnapshot baseline = null;
+            if (baselineTick != 0) {
+                baseline = history.get(baselineTick);
+                if (baseline == null || tick - baselineTick >= SnapshotHistory.CAPACITY) {
+                    return null;
+                }
+            }
+            if (history.get(tick) != null) {
+                return null;
+            }
+            snapshot = history.slotFor(tick);
+            snapshot.particleTick = readVarInt(in);
+            snapshot.level = readVarInt(in);
+            snapshot.score = readVarInt(in);
+            snapshot.destroyedPlanets = readVarInt(in);
+            snapshot.coins = readVarLong(in);
+            boolean ok = readTable(in, snapshot.ships, baseline != null ? baseline.ships : null)
+                && readTable(in, snapshot.enemies, baseline != null ? baseline.enemies : null)
+                && readTable(in, snapshot.planets, baseline != null ? baseline.planets : null)
+                && readTable(in, snapshot.bursts, baseline != null ? baseline.bursts : null);
+            if (!ok) {
+                snapshot.clear();
+                return null;
+            }
+            return snapshot;
+        } catch (RuntimeException e) {
+            // Truncated or out-of-range fields; never leave a half-decoded slot in the history.
+            if (snapshot != null) {
+                snapshot.clear();
+            }
+            return null;
+        }
+    }
+
+    static void writeInput(ByteBuffer out, int ackTick, int inputSeq, float forceX, float forceY,
+                           boolean active) {
+        out.put(PACKET_INPUT);
+        writeVarInt(out, ackTick);
+        writeVarInt(out, inputSeq);
+        out.put(quantizeForce(forceX));
+        out.put(quantizeForce(forceY));
+        out.put((byte)(active ? 1 : 0));
+    }
+
+    /** Datagrams needed for an encoded snapshot packet of {@code packetLength} bytes. */
+    static int partCount(int packetLength) {
+        if (packetLength <= MAX_DATAGRAM_BYTES) {
+            return 1;
+        }
+        return (packetLength - 1 + PART_PAYLOAD_BYTES - 1) / PART_PAYLOAD_BYTES;
+    }
+
+    /**
+     * Writes part {@code part} of {@code count} of a split snapshot: a part header, then that part's
+     * slice of the encoded packet after its type byte.
+     */
+    static void writePart(ByteBuffer out, int tick, byte[] packet, int packetLength, int part, int count) {
+        out.put(PACKET_SNAPSHOT_PART);
+        writeVarInt(out, tick);
+        out.put((byte)part);
+        out.put((byte)count);
+        int offset = 1 + part * PART_PAYLOAD_BYTES;
+        out.put(packet, offset, Math.min(PART_PAYLOAD_BYTES, packetLength - offset));
+    }
+
+    /** Stick forces travel as signed bytes; predictors apply the decoded value so they match the host. */
+    static byte quantizeForce(float force) {
+        return (byte)Math.round(Math.max(-1f, Math.min(1f, force)) * 127);
+    }
+
+    static float dequantizeForce(byte value) {
+        return value / 127f;
+    }
+
+    private static void writeTable(ByteBuffer out, EntityTable current, EntityTable baseline) {
+        int previousId = -1;
+        int b = 0;
+        for (int row = 0; row < current.size; row++) {
+            int id = current.ids[row];
+            while (baseline != null && b < baseline.size && baseline.ids[b] < id) b++;
+            boolean existed = baseline != null && b < baseline.size && baseline.ids[b] == id;
+
+            if (existed) {
+                int mask = 0;
+                for (int field = 0; field < current.fieldCount; field++) {
+                    if (current.get(row, field) != baseline.get(b, field)) {
+                        mask |= 1 << field;
+                    }
+                }
+                if (mask == 0) continue;
+                writeVarInt(out, id - previousId);
+                writeVarInt(out, mask << 1);
+                for (int field = 0; field < current.fieldCount; field++) {
+                    if ((mask & (1 << field)) != 0) {
+                        writeVarInt(out, zigzag(current.get(row, field) - baseline.get(b, field)));
+                    }
+                }
+            } else {
+                writeVarInt(out, id - previousId);
+                writeVarInt(out, 1);
+                for (int field = 0; field < current.fieldCount; field++) {
+                    writeVarInt(out, zigzag(current.get(row, field)));
+                }
+            }
+            previousId = id;
+        }
+        writeVarInt(out, 0);
+
+        previousId = -1;
+        int c = 0;
+        for (int row = 0; baseline != null && row < baseline.size; row++) {
+            int id = baseline.ids[row];
+            while (c < current.size && current.ids[c] < id) c++;
+            if (c < current.size && current.ids[c] == id) continue;
+            writeVarInt(out, id - previousId);
+            previousId = id;
+        }
+        writeVarInt(out, 0);
+    }
+
+    private static boolean readTable(ByteBuffer in, EntityTable table, EntityTable baseline) {
+        if (baseline != null) {
+            table.copyFrom(baseline);
+        } else {
+            table.clear();
+        }
+        int sortedSize = table.size;
+        boolean appended = false;
+
+        int id = -1;
+        int gap;
+        while ((gap = readVarInt(in)) != 0) {
+            id += gap;
+            int header = readVarInt(in);
+            if ((header & 1) != 0) {
+                int row = table.add(id);
+                for (int field = 0; field < table.fieldCount; field++) {
+                    table.set(row, field, unzigzag(readVarInt(in)));
+                }
+                appended = true;
+            } else {
+                int row = table.indexOf(id, sortedSize);
+                if (row < 0) return false;
+                int mask = header >>> 1;
+                for (int field = 0; field < table.fieldCount; field++) {
+                    if ((mask & (1 << field)) != 0) {
+                        table.set(row, field, table.get(row, field) + unzigzag(readVarInt(in)));
+                    }
+                }
+            }
+        }
+
+        id = -1;
+        boolean removed = false;
+        while ((gap = readVarInt(in)) != 0) {
+            id += gap;
+            int row = table.indexOf(id, sortedSize);
+            if (row < 0) return false;
+            table.ids[row] = -1;
+            removed = true;
+        }
+        if (removed) table.compact();
+        if (appended) table.sortById();
+        return true;
+    }
+
+    static void writeVarInt(ByteBuffer out, int value) {
+        while ((value & ~0x7F) != 0) {
+            out.put((byte)((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.put((byte)value);
+    }
+
+    static int readVarInt(ByteBuffer in) {
+        int result = 0;
+        for (int shift = 0; shift < 35; shift += 7) {
+            byte b = in.get();
+            result |= (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) return result;
+        }
+        throw new BufferUnderflowException();
+    }
+
+    static void writeVarLong(ByteBuffer out, long value) {
+        while ((value & ~0x7FL) != 0) {
+            out.put((byte)((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.put((byte)value);
+    }
+
+    static long readVarLong(ByteBuffer in) {
+        long result = 0;
+        for (int shift = 0; shift < 70; shift += 7) {
+            byte b = in.get();
+            result |= (long)(b & 0x7F) << shift;
+            if ((b & 0x80) == 0) return result;
+        }
+        throw new BufferUnderflowException();
+    }
+
+    private static int zigzag(int value) {
+        return (value << 1) ^ (value >> 31);
+    }
+
+    private static int unzigzag(int value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+}
+
+/**
+ * Collects the parts of a split snapshot. Only the newest tick is assembled: parts of an older
+ * tick are ignored, and a newer tick abandons whatever was collected, since a later snapshot
+ * supersedes it anyway.
+ */
+class SnapshotAssembler {
+    private final byte[] data = new byte[SnapshotCodec.MAX_PACKET_BYTES];
+    private final boolean[] received = new boolean[SnapshotCodec.MAX_PARTS];
+    private int tick;
+    private int partCount;
+    private int receivedCount;
+    private int length;
+
+    /**
+     * Adds a part packet (after its type byte). Returns the reassembled snapshot body, positioned
+     * like a {@link SnapshotCodec#PACKET_SNAPSHOT} packet after its type byte, once every part has
+     * arrived; null until then or if the part is stale or malformed. The returned buffer is only
+     * valid until the next call.
+     */
+    ByteBuffer add(ByteBuffer in) {
+        int partTick = SnapshotCodec.readVarInt(in);
+        int part = in.get() & 0xFF;
+        int count = in.get() & 0xFF;
+        int size = in.remaining();
+        boolean last = part == count - 1;
+        if (count < 2 || count > SnapshotCodec.MAX_PARTS || part >= count
+                || size > SnapshotCodec.PART_PAYLOAD_BYTES
+                || (!last && size != SnapshotCodec.PART_PAYLOAD_BYTES)) {
+            return null;
+        }
+        if (partTick < tick) {
+            return null;
+        }
+        if (partTick > tick || partCount != count) {
+            tick = partTick;
+            partCount = count;
+            receivedCount = 0;
+            for (int i = 0; i < count; i++) {
+                received[i] = false;
+            }
+        }
+        if (received[part]) {
+            return null;
+        }
+        in.get(data, part * SnapshotCodec.PART_PAYLOAD_BYTES, size);
+        received[part] = true;
+        receivedCount++;
+        if (last) {
+            length = part * SnapshotCodec.PART_PAYLOAD_BYTES + size;
+        }
+        if (receivedCount < partCount) {
+            return null;
+        }
+        // Stragglers and duplicates of the finished tick are stale from here on.
+        tick = partTick + 1;
+        partCount = 0;
+        return ByteBuffer.wrap(data, 0, length);
+    }
+}
@@ -0,0 +1,72 @@
+package com.space.ship.game;
+
+import android.os.Build;
+import android.os.Process;
+import android.os.SystemClock;
+import android.util.Log;
+
+/**
+ * Startup milestones, measured from engine construction and, where the platform exposes it, from
+ * process start. The first frame is the first thing posted to the surface (the loading screen);
+ * the first full-quality frame is the first game frame drawn after warm-up at full render scale.
+ */
+class StartupMetrics {
+    private static final String TAG = "Startup";
+
+    private final long createdMillis = SystemClock.elapsedRealtime();
+    private final long processStartMillis = Build.VERSION.SDK_INT >= Build.VERSION_CODES.N
+        ? Process.getStartElapsedRealtime() : -1;
+    private volatile long firstFrameMillis = -1;
+    private volatile long readyMillis = -1;
+    private volatile long fullQualityMillis = -1;
+
+    void onFirstFrame() {
+        if (firstFrameMillis < 0) {
+            firstFrameMillis = SystemClock.elapsedRealtime();
+        }
+    }
+
+    void onReady() {
+        readyMillis = SystemClock.elapsedRealtime();
+    }
+
+    void onFullQualityFrame() {
+        if (fullQualityMillis < 0) {
+            fullQualityMillis = SystemClock.elapsedRealtime();
+            Log.i(TAG, toString());
+        }
+    }
+
+    boolean hasFullQualityFrame() {
+        return fullQualityMillis >= 0;
+    }
+
+    /** Milliseconds from engine construction to the first posted frame, or -1 if none yet. */
+    public long getTimeToFirstFrame() {
+        return since(createdMillis, firstFrameMillis);
+    }
+
+    public long getTimeToReady() {
+        return since(createdMillis, readyMillis);
+    }
+
+    public long getTimeToFullQualityFrame() {
+        return since(createdMillis, fullQualityMillis);
+    }
+
+    /** Milliseconds from process start to the first full-quality frame, or -1 if unknown. */
+    public long getColdStartTime() {
+        return processStartMillis < 0 ? -1 : since(processStartMillis, fullQualityMillis);
+    }
+
+    private static long since(long start, long end) {
+        return end < 0 ? -1 : end - start;
+    }
+
+    @Override
+    public String toString() {
+        return "first frame " + getTimeToFirstFrame() + " ms, ready " + getTimeToReady()
+            + " ms, first full-quality frame " + getTimeToFullQualityFrame()
+            + " ms, from process start " + getColdStartTime() + " ms";
+    }
+}
@@ -0,0 +1,211 @@
+package com.space.ship.game;
+
+/**
+ * Quantised world state for one simulation tick, as sent from host to client. Positions are
+ * stored in 1/8 world units and velocities in 1/64 units per tick so deltas stay small integers.
+ */
+class WorldSnapshot {
+    static final float POSITION_SCALE = 8f;
+    static final float VELOCITY_SCALE = 64f;
+
+    static final int SHIP_X = 0, SHIP_Y = 1, SHIP_VX = 2, SHIP_VY = 3, SHIP_HEALTH = 4, SHIP_INPUT_SEQ = 5;
+    static final int SHIP_FIELDS = 6;
+    static final int ENEMY_X = 0, ENEMY_Y = 1;
+    static final int ENEMY_FIELDS = 2;
+    static final int PLANET_X = 0, PLANET_Y = 1, PLANET_HEALTH = 2, PLANET_MAX_HEALTH = 3;
+    static final int PLANET_FIELDS = 4;
+    static final int BURST_X = 0, BURST_Y = 1, BURST_SPAWN_TICK = 2, BURST_SEED = 3,
+        BURST_COUNT = 4, BURST_COLOR = 5, BURST_KIND = 6;
+    static final int BURST_FIELDS = 7;
+
+    static final int HOST_SHIP_ID = 0;
+    static final int CLIENT_SHIP_ID = 1;
+
+    int tick;
+    int particleTick;
+    int level;
+    int score;
+    int destroyedPlanets;
+    long coins;
+    final EntityTable ships = new EntityTable(SHIP_FIELDS);
+    final EntityTable enemies = new EntityTable(ENEMY_FIELDS);
+    final EntityTable planets = new EntityTable(PLANET_FIELDS);
+    final EntityTable bursts = new EntityTable(BURST_FIELDS);
+
+    void clear() {
+        tick = 0;
+        ships.clear();
+        enemies.clear();
+        planets.clear();
+        bursts.clear();
+    }
+
+    void copyFrom(WorldSnapshot other) {
+        tick = other.tick;
+        particleTick = other.particleTick;
+        level = other.level;
+        score = other.score;
+        destroyedPlanets = other.destroyedPlanets;
+        coins = other.coins;
+        ships.copyFrom(other.ships);
+        enemies.copyFrom(other.enemies);
+        planets.copyFrom(other.planets);
+        bursts.copyFrom(other.bursts);
+    }
+
+    /** Blends positions between {@code from} and {@code to}; everything else comes from {@code to}. */
+    void interpolate(WorldSnapshot from, WorldSnapshot to, float alpha) {
+        copyFrom(to);
+        ships.lerpPositions(from.ships, alpha);
+        enemies.lerpPositions(from.enemies, alpha);
+    }
+
+    static int quantizePosition(float value) {
+        return Math.round(value * POSITION_SCALE);
+    }
+
+    static int quantizeVelocity(float value) {
+        return Math.round(value * VELOCITY_SCALE);
+    }
+}
+
+/** Rows of integer fields keyed by entity id, kept sorted by id for delta encoding. */
+class EntityTable {
+    final int fieldCount;
+    int size;
+    int[] ids = new int[16];
+    int[] values;
+    private final int[] scratchRow;
+
+    EntityTable(int fieldCount) {
+        this.fieldCount = fieldCount;
+        values = new int[16 * fieldCount];
+        scratchRow = new int[fieldCount];
+    }
+
+    void clear() {
+        size = 0;
+    }
+
+    int add(int id) {
+        if (size == ids.length) {
+            grow(size * 2);
+        }
+        ids[size] = id;
+        return size++;
+    }
+
+    int get(int row, int field) {
+        return values[row * fieldCount + field];
+    }
+
+    void set(int row, int field, int value) {
+        values[row * fieldCount + field] = value;
+    }
+
+    /** Binary search over the first {@code limit} rows, which must be sorted. */
+    int indexOf(int id, int limit) {
+        int low = 0, high = limit - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            int midId = ids[mid];
+            if (midId < id) low = mid + 1;
+            else if (midId > id) high = mid - 1;
+            else return mid;
+        }
+        return -1;
+    }
+
+    int indexOf(int id) {
+        return indexOf(id, size);
+    }
+
+    /** Insertion sort; capture order is usually close to id order already. */
+    void sortById() {
+        int[] row = scratchRow;
+        for (int i = 1; i < size; i++) {
+            int id = ids[i];
+            if (ids[i - 1] <= id) continue;
+            System.arraycopy(values, i * fieldCount, row, 0, fieldCount);
+            int j = i - 1;
+            while (j >= 0 && ids[j] > id) {
+                ids[j + 1] = ids[j];
+                System.arraycopy(values, j * fieldCount, values, (j + 1) * fieldCount, fieldCount);
+                j--;
+            }
+            ids[j + 1] = id;
+            System.arraycopy(row, 0, values, (j + 1) * fieldCount, fieldCount);
+        }
+    }
+
+    /** Drops rows whose id was set to -1. */
+    void compact() {
+        int write = 0;
+        for (int read = 0; read < size; read++) {
+            if (ids[read] < 0) continue;
+            if (write != read) {
+                ids[write] = ids[read];
+                System.arraycopy(values, read * fieldCount, values, write * fieldCount, fieldCount);
+            }
+            write++;
+        }
+        size = write;
+    }
+
+    void copyFrom(EntityTable other) {
+        if (ids.length < other.size) {
+            grow(other.size);
+        }
+        System.arraycopy(other.ids, 0, ids, 0, other.size);
+        System.arraycopy(other.values, 0, values, 0, other.size * fieldCount);
+        size = other.size;
+    }
+
+    /** Fields 0 and 1 are x and y for every table that moves. */
+    void lerpPositions(EntityTable from, float alpha) {
+        for (int row = 0; row < size; row++) {
+            int fromRow = from.indexOf(ids[row]);
+            if (fromRow < 0) continue;
+            for (int field = 0; field < 2; field++) {
+                int a = from.get(fromRow, field);
+                int b = get(row, field);
+                set(row, field, a + Math.round((b - a) * alpha));
+            }
+        }
+    }
+
+    private void grow(int capacity) {
+        int[] newIds = new int[capacity];
+        int[] newValues = new int[capacity * fieldCount];
+        System.arraycopy(ids, 0, newIds, 0, size);
+        System.arraycopy(values, 0, newValues, 0, size * fieldCount);
+        ids = newIds;
+        values = newValues;
+    }
+}
+
+/** Fixed ring of recent snapshots addressed by tick, used to resolve delta baselines. */
+class SnapshotHistory {
+    static final int CAPACITY = 64;
+    private final WorldSnapshot[] slots = new WorldSnapshot[CAPACITY];
+
+    SnapshotHistory() {
+        for (int i = 0; i < CAPACITY; i++) {
+            slots[i] = new WorldSnapshot();
+        }
+    }
+
+    WorldSnapshot slotFor(int tick) {
+        WorldSnapshot slot = slots[tick % CAPACITY];
+        slot.clear();
+        slot.tick = tick;
+        return slot;
+    }
+
+    /** The stored snapshot for {@code tick}, or null if it was never stored or has been overwritten. */
+    WorldSnapshot get(int tick) {
+        if (tick <= 0) return null;
+        WorldSnapshot slot = slots[tick % CAPACITY];
+        return slot.tick == tick ? slot : null;
+    }
+}
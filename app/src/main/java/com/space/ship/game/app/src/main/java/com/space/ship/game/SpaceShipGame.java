@@ -1,6 +1,7 @@
 package com.space.ship.game;
 
 import android.app.Activity;
+import android.content.Intent;
 import android.os.Bundle;
 import android.view.Window;
 import android.view.WindowManager;
@@ -8,6 +9,11 @@ import android.graphics.Point;
 import android.view.Display;
 
 public class SpaceShipGame extends Activity {
+    public static final String EXTRA_NET_MODE = "net_mode";
+    public static final String EXTRA_NET_HOST = "net_host";
+    public static final String EXTRA_NET_PORT = "net_port";
+    private static final int DEFAULT_NET_PORT = 40404;
+    
     private GameEngine gameEngine;
 
     @Override
@@ -24,15 +30,35 @@ public class SpaceShipGame extends Activity {
         display.getSize(size);
         
         gameEngine = new GameEngine(this, size.x, size.y);
+        startNetSession(getIntent());
         setContentView(gameEngine);
     }
 
+    private void startNetSession(Intent intent) {
+        String mode = intent.getStringExtra(EXTRA_NET_MODE);
+        int port = intent.getIntExtra(EXTRA_NET_PORT, DEFAULT_NET_PORT);
+        if ("host".equals(mode)) {
+            gameEngine.startHosting(port);
+        } else if ("join".equals(mode)) {
+            String host = intent.getStringExtra(EXTRA_NET_HOST);
+            if (host != null) {
+                gameEngine.joinSession(host, port);
+            }
+        }
+    }
+
     @Override
     protected void onPause() {
         super.onPause();
         gameEngine.pauseGame();
     }
 
+    @Override
+    public void onTrimMemory(int level) {
+        super.onTrimMemory(level);
+        gameEngine.onTrimMemory(level);
+    }
+
     @Override
     protected void onResume() {
         super.onResume();
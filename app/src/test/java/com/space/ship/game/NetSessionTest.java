@@ -0,0 +1,112 @@
+package com.space.ship.game;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.net.DatagramPacket;
+import java.net.DatagramSocket;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Runs a host and a client against each other over the loopback interface. These tests wait on
+ * real sockets; the codec and prediction checks that need none live in their own classes.
+ */
+public class NetSessionTest {
+    private static final long TIMEOUT_MILLIS = 5000;
+
+    private NetHost host;
+    private NetClient client;
+
+    @Before
+    public void connect() throws Exception {
+        host = new NetHost(0);
+        client = new NetClient("127.0.0.1", host.getLocalPort());
+        long deadline = System.currentTimeMillis() + TIMEOUT_MILLIS;
+        while (!host.hasClient()) {
+            // Seq 0 is never queued, so this only registers the client's address.
+            client.sendInput(0, 0, 0, false);
+            if (System.currentTimeMillis() > deadline) {
+                fail("client never reached the host");
+            }
+            Thread.sleep(10);
+        }
+    }
+
+    @After
+    public void close() {
+        client.close();
+        host.close();
+    }
+
+    @Test
+    public void interpolatesBetweenSnapshots() throws Exception {
+        for (int tick = 1; tick <= 4; tick++) {
+            WorldSnapshot snapshot = host.beginSnapshot(tick);
+            int row = snapshot.ships.add(WorldSnapshot.HOST_SHIP_ID);
+            snapshot.ships.set(row, WorldSnapshot.SHIP_X, WorldSnapshot.quantizePosition(tick * 100));
+            snapshot.ships.set(row, WorldSnapshot.SHIP_Y, WorldSnapshot.quantizePosition(500));
+            host.send(snapshot);
+            awaitLatestTick(tick);
+        }
+
+        WorldSnapshot out = new WorldSnapshot();
+        assertTrue(client.interpolate(2.25f, out));
+        int row = out.ships.indexOf(WorldSnapshot.HOST_SHIP_ID);
+        assertEquals(225f, out.ships.get(row, WorldSnapshot.SHIP_X) / WorldSnapshot.POSITION_SCALE, 0.2f);
+        assertEquals(500f, out.ships.get(row, WorldSnapshot.SHIP_Y) / WorldSnapshot.POSITION_SCALE, 0.2f);
+    }
+
+    @Test
+    public void hostIgnoresDatagramsFromOtherPeers() throws Exception {
+        long dropped = host.getStats().getDroppedPackets();
+        ByteBuffer input = ByteBuffer.allocate(32);
+        SnapshotCodec.writeInput(input, 0, 1, 1, 1, true);
+        DatagramSocket stranger = new DatagramSocket();
+        try {
+            stranger.send(new DatagramPacket(input.array(), input.position(),
+                new InetSocketAddress("127.0.0.1", host.getLocalPort())));
+            long deadline = System.currentTimeMillis() + TIMEOUT_MILLIS;
+            while (host.getStats().getDroppedPackets() == dropped) {
+                if (System.currentTimeMillis() > deadline) {
+                    fail("stranger's datagram was never dropped");
+                }
+                Thread.sleep(5);
+            }
+        } finally {
+            stranger.close();
+        }
+        assertEquals(0, host.getQueuedInputCount());
+    }
+
+    @Test
+    public void splitSnapshotArrivesWhole() throws Exception {
+        WorldSnapshot snapshot = host.beginSnapshot(1);
+        for (int id = 0; id < 800; id++) {
+            int row = snapshot.enemies.add(id);
+            snapshot.enemies.set(row, WorldSnapshot.ENEMY_X, id * 977);
+            snapshot.enemies.set(row, WorldSnapshot.ENEMY_Y, -id * 331);
+        }
+        host.send(snapshot);
+        awaitLatestTick(1);
+
+        WorldSnapshot latest = new WorldSnapshot();
+        assertTrue(client.copyLatest(latest));
+        assertEquals(800, latest.enemies.size);
+        assertEquals(799 * 977, latest.enemies.get(799, WorldSnapshot.ENEMY_X));
+    }
+
+    private void awaitLatestTick(int tick) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + TIMEOUT_MILLIS;
+        while (client.getLatestTick() < tick) {
+            if (System.currentTimeMillis() > deadline) {
+                fail("snapshot " + tick + " never arrived");
+            }
+            Thread.sleep(5);
+        }
+    }
+}
@@ -0,0 +1,99 @@
+package com.space.ship.game;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+import java.nio.ByteBuffer;
+import org.junit.Test;
+
+public class ShipPredictorTest {
+    private static final float WORLD_SIZE = 4000;
+
+    private final SnapshotHistory hostHistory = new SnapshotHistory();
+    private final SnapshotHistory clientHistory = new SnapshotHistory();
+    private final ByteBuffer buffer = ByteBuffer.allocate(SnapshotCodec.MAX_PACKET_BYTES);
+
+    @Test
+    public void replayMatchesHostSimulation() {
+        SpaceShip predicted = new SpaceShip(600, 600, WORLD_SIZE, WORLD_SIZE);
+        ShipPredictor predictor = new ShipPredictor(predicted);
+        SpaceShip wingman = new SpaceShip(2000, 2000, WORLD_SIZE, WORLD_SIZE);
+        VirtualJoystick remoteJoystick = new VirtualJoystick(0, 0, 1);
+
+        int inputs = 10;
+        ClientInput[] sent = new ClientInput[inputs];
+        for (int i = 0; i < inputs; i++) {
+            float forceX = (float)Math.cos(i * 0.7);
+            float forceY = (float)Math.sin(i * 0.7) * 0.6f;
+            boolean active = i % 4 != 3;
+            sent[i] = asReceived(predictor.step(forceX, forceY, active), forceX, forceY, active);
+        }
+
+        // The host gets through part of the queue before its snapshot goes out.
+        int applied = 6;
+        int appliedSeq = 0;
+        for (int i = 0; i < applied; i++) {
+            appliedSeq = applyInput(wingman, remoteJoystick, sent[i]);
+        }
+        WorldSnapshot snapshot = hostHistory.slotFor(1);
+        int row = snapshot.ships.add(WorldSnapshot.CLIENT_SHIP_ID);
+        snapshot.ships.set(row, WorldSnapshot.SHIP_X, WorldSnapshot.quantizePosition(wingman.getX()));
+        snapshot.ships.set(row, WorldSnapshot.SHIP_Y, WorldSnapshot.quantizePosition(wingman.getY()));
+        snapshot.ships.set(row, WorldSnapshot.SHIP_VX, WorldSnapshot.quantizeVelocity(wingman.getVelocityX()));
+        snapshot.ships.set(row, WorldSnapshot.SHIP_VY, WorldSnapshot.quantizeVelocity(wingman.getVelocityY()));
+        snapshot.ships.set(row, WorldSnapshot.SHIP_HEALTH, wingman.getHealth());
+        snapshot.ships.set(row, WorldSnapshot.SHIP_INPUT_SEQ, appliedSeq);
+
+        WorldSnapshot received = roundTrip(snapshot);
+        assertTrue(predictor.reconcile(received.ships, WorldSnapshot.CLIENT_SHIP_ID));
+
+        for (int i = applied; i < inputs; i++) {
+            appliedSeq = applyInput(wingman, remoteJoystick, sent[i]);
+        }
+        assertEquals(inputs, appliedSeq);
+        // Only the snapshot's quantisation separates the replayed ship from the host's.
+        assertEquals(wingman.getX(), predicted.getX(), 0.25f);
+        assertEquals(wingman.getY(), predicted.getY(), 0.25f);
+        assertEquals(wingman.getVelocityX(), predicted.getVelocityX(), 0.02f);
+        assertEquals(wingman.getVelocityY(), predicted.getVelocityY(), 0.02f);
+    }
+
+    @Test
+    public void reconcileWithoutShipRowLeavesPrediction() {
+        SpaceShip predicted = new SpaceShip(600, 600, WORLD_SIZE, WORLD_SIZE);
+        ShipPredictor predictor = new ShipPredictor(predicted);
+        predictor.step(1, 0, true);
+        float x = predicted.getX();
+
+        assertFalse(predictor.reconcile(new EntityTable(WorldSnapshot.SHIP_FIELDS), WorldSnapshot.CLIENT_SHIP_ID));
+        assertEquals(x, predicted.getX(), 0);
+    }
+
+    /** The input as the host decodes it: the same quantisation the wire applies. */
+    private static ClientInput asReceived(int seq, float forceX, float forceY, boolean active) {
+        ClientInput input = new ClientInput();
+        input.seq = seq;
+        input.forceX = SnapshotCodec.dequantizeForce(SnapshotCodec.quantizeForce(forceX));
+        input.forceY = SnapshotCodec.dequantizeForce(SnapshotCodec.quantizeForce(forceY));
+        input.active = active;
+        return input;
+    }
+
+    private static int applyInput(SpaceShip ship, VirtualJoystick joystick, ClientInput input) {
+        joystick.setForce(input.active, input.forceX, input.forceY);
+        ship.update(joystick);
+        return input.seq;
+    }
+
+    private WorldSnapshot roundTrip(WorldSnapshot snapshot) {
+        buffer.clear();
+        SnapshotCodec.writeSnapshot(snapshot, null, buffer);
+        ByteBuffer in = ByteBuffer.wrap(buffer.array(), 0, buffer.position());
+        assertEquals(SnapshotCodec.PACKET_SNAPSHOT, in.get());
+        WorldSnapshot received = SnapshotCodec.readSnapshot(in, clientHistory);
+        assertNotNull(received);
+        return received;
+    }
+}
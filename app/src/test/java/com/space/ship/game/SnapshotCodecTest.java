@@ -0,0 +1,223 @@
+package com.space.ship.game;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import org.junit.Test;
+
+public class SnapshotCodecTest {
+    private final SnapshotHistory hostHistory = new SnapshotHistory();
+    private final SnapshotHistory clientHistory = new SnapshotHistory();
+    private final ByteBuffer buffer = ByteBuffer.allocate(SnapshotCodec.MAX_PACKET_BYTES);
+
+    @Test
+    public void fullSnapshotRoundTrips() {
+        WorldSnapshot sent = fillWorld(hostHistory.slotFor(10));
+
+        WorldSnapshot received = decode(encode(sent, null));
+
+        assertNotNull(received);
+        assertSameSnapshot(sent, received);
+    }
+
+    @Test
+    public void deltaAgainstAckedBaselineRoundTrips() {
+        WorldSnapshot baseline = fillWorld(hostHistory.slotFor(10));
+        assertNotNull(decode(encode(baseline, null)));
+
+        WorldSnapshot current = hostHistory.slotFor(11);
+        current.copyFrom(baseline);
+        current.tick = 11;
+        current.score += 25;
+        current.enemies.set(current.enemies.indexOf(101), WorldSnapshot.ENEMY_X, -3000);
+        current.enemies.ids[current.enemies.indexOf(102)] = -1;
+        current.enemies.compact();
+        int row = current.enemies.add(150);
+        current.enemies.set(row, WorldSnapshot.ENEMY_X, 42);
+        current.enemies.set(row, WorldSnapshot.ENEMY_Y, -42);
+        current.enemies.sortById();
+        current.planets.set(0, WorldSnapshot.PLANET_HEALTH, 1);
+
+        int deltaBytes = encode(current, baseline);
+        WorldSnapshot received = decode(deltaBytes);
+
+        assertNotNull(received);
+        assertSameSnapshot(current, received);
+        assertTrue("delta " + deltaBytes + " B, full " + fullSize(current) + " B",
+            deltaBytes < fullSize(current));
+    }
+
+    @Test
+    public void deltaWithoutBaselineIsDropped() {
+        WorldSnapshot baseline = fillWorld(hostHistory.slotFor(10));
+        WorldSnapshot current = hostHistory.slotFor(11);
+        current.copyFrom(baseline);
+        current.tick = 11;
+
+        assertNull(decode(encode(current, baseline)));
+        assertNull(clientHistory.get(11));
+    }
+
+    @Test
+    public void truncatedPacketLeavesNoPartialSnapshot() {
+        WorldSnapshot sent = fillWorld(hostHistory.slotFor(10));
+        int length = encode(sent, null);
+
+        assertNull(decode(length / 2));
+        assertNull(clientHistory.get(10));
+    }
+
+    @Test
+    public void oversizedSnapshotIsSplitBelowTheMtuAndReassembled() {
+        WorldSnapshot sent = fillWorld(hostHistory.slotFor(10));
+        for (int id = 1000; id < 1600; id++) {
+            int row = sent.enemies.add(id);
+            sent.enemies.set(row, WorldSnapshot.ENEMY_X, id * 977);
+            sent.enemies.set(row, WorldSnapshot.ENEMY_Y, -id * 331);
+        }
+        int length = encode(sent, null);
+        int parts = SnapshotCodec.partCount(length);
+        assertTrue(parts > 1);
+
+        byte[][] datagrams = new byte[parts][];
+        ByteBuffer part = ByteBuffer.allocate(SnapshotCodec.MAX_DATAGRAM_BYTES);
+        for (int i = 0; i < parts; i++) {
+            part.clear();
+            SnapshotCodec.writePart(part, sent.tick, buffer.array(), length, i, parts);
+            assertTrue(part.position() <= SnapshotCodec.MAX_DATAGRAM_BYTES);
+            datagrams[i] = Arrays.copyOf(part.array(), part.position());
+        }
+
+        SnapshotAssembler assembler = new SnapshotAssembler();
+        ByteBuffer body = null;
+        // Delivered newest part first, with a duplicate along the way.
+        for (int i = parts - 1; i >= 0; i--) {
+            assertNull(body);
+            body = assembler.add(afterType(datagrams[i]));
+            if (i == parts - 1) {
+                assertNull(assembler.add(afterType(datagrams[i])));
+            }
+        }
+        assertNotNull(body);
+        WorldSnapshot received = SnapshotCodec.readSnapshot(body, clientHistory);
+        assertNotNull(received);
+        assertSameSnapshot(sent, received);
+
+        // Stragglers of a finished tick do not start a new assembly.
+        assertNull(assembler.add(afterType(datagrams[0])));
+    }
+
+    @Test
+    public void smallSnapshotFitsOneDatagram() {
+        assertEquals(1, SnapshotCodec.partCount(encode(fillWorld(hostHistory.slotFor(10)), null)));
+    }
+
+    @Test
+    public void varIntsRoundTrip() {
+        int[] values = {0, 1, 127, 128, 300, Integer.MAX_VALUE, -1, Integer.MIN_VALUE};
+        buffer.clear();
+        for (int value : values) {
+            SnapshotCodec.writeVarInt(buffer, value);
+        }
+        SnapshotCodec.writeVarLong(buffer, 1L << 40);
+        buffer.flip();
+        for (int value : values) {
+            assertEquals(value, SnapshotCodec.readVarInt(buffer));
+        }
+        assertEquals(1L << 40, SnapshotCodec.readVarLong(buffer));
+    }
+
+    @Test
+    public void forceQuantisationIsStable() {
+        for (float force = -1.5f; force <= 1.5f; force += 0.01f) {
+            byte quantized = SnapshotCodec.quantizeForce(force);
+            assertEquals(quantized, SnapshotCodec.quantizeForce(SnapshotCodec.dequantizeForce(quantized)));
+        }
+    }
+
+    private static WorldSnapshot fillWorld(WorldSnapshot snapshot) {
+        snapshot.particleTick = 77;
+        snapshot.level = 3;
+        snapshot.score = 1200;
+        snapshot.destroyedPlanets = 4;
+        snapshot.coins = 5_000_000_000L;
+        for (int id = 0; id < 2; id++) {
+            int row = snapshot.ships.add(id);
+            snapshot.ships.set(row, WorldSnapshot.SHIP_X, 8000 + id * 64);
+            snapshot.ships.set(row, WorldSnapshot.SHIP_Y, 12000 - id * 64);
+            snapshot.ships.set(row, WorldSnapshot.SHIP_VX, -200);
+            snapshot.ships.set(row, WorldSnapshot.SHIP_VY, 90);
+            snapshot.ships.set(row, WorldSnapshot.SHIP_HEALTH, 100);
+            snapshot.ships.set(row, WorldSnapshot.SHIP_INPUT_SEQ, id * 17);
+        }
+        for (int id = 100; id < 140; id++) {
+            int row = snapshot.enemies.add(id);
+            snapshot.enemies.set(row, WorldSnapshot.ENEMY_X, id * 40);
+            snapshot.enemies.set(row, WorldSnapshot.ENEMY_Y, -id * 24);
+        }
+        for (int id = 5; id < 9; id++) {
+            int row = snapshot.planets.add(id);
+            snapshot.planets.set(row, WorldSnapshot.PLANET_X, id * 1000);
+            snapshot.planets.set(row, WorldSnapshot.PLANET_Y, id * 700);
+            snapshot.planets.set(row, WorldSnapshot.PLANET_HEALTH, 30);
+            snapshot.planets.set(row, WorldSnapshot.PLANET_MAX_HEALTH, 30);
+        }
+        int row = snapshot.bursts.add(9);
+        for (int field = 0; field < WorldSnapshot.BURST_FIELDS; field++) {
+            snapshot.bursts.set(row, field, field * 3 - 5);
+        }
+        return snapshot;
+    }
+
+    private int encode(WorldSnapshot snapshot, WorldSnapshot baseline) {
+        buffer.clear();
+        SnapshotCodec.writeSnapshot(snapshot, baseline, buffer);
+        return buffer.position();
+    }
+
+    private static ByteBuffer afterType(byte[] datagram) {
+        ByteBuffer in = ByteBuffer.wrap(datagram);
+        assertEquals(SnapshotCodec.PACKET_SNAPSHOT_PART, in.get());
+        return in;
+    }
+
+    private int fullSize(WorldSnapshot snapshot) {
+        ByteBuffer full = ByteBuffer.allocate(SnapshotCodec.MAX_PACKET_BYTES);
+        SnapshotCodec.writeSnapshot(snapshot, null, full);
+        return full.position();
+    }
+
+    private WorldSnapshot decode(int length) {
+        ByteBuffer in = ByteBuffer.wrap(buffer.array(), 0, length);
+        assertEquals(SnapshotCodec.PACKET_SNAPSHOT, in.get());
+        return SnapshotCodec.readSnapshot(in, clientHistory);
+    }
+
+    private static void assertSameSnapshot(WorldSnapshot expected, WorldSnapshot actual) {
+        assertEquals(expected.tick, actual.tick);
+        assertEquals(expected.particleTick, actual.particleTick);
+        assertEquals(expected.level, actual.level);
+        assertEquals(expected.score, actual.score);
+        assertEquals(expected.destroyedPlanets, actual.destroyedPlanets);
+        assertEquals(expected.coins, actual.coins);
+        assertSameTable(expected.ships, actual.ships);
+        assertSameTable(expected.enemies, actual.enemies);
+        assertSameTable(expected.planets, actual.planets);
+        assertSameTable(expected.bursts, actual.bursts);
+    }
+
+    private static void assertSameTable(EntityTable expected, EntityTable actual) {
+        assertEquals(expected.size, actual.size);
+        for (int row = 0; row < expected.size; row++) {
+            assertEquals(expected.ids[row], actual.ids[row]);
+            for (int field = 0; field < expected.fieldCount; field++) {
+                assertEquals("id " + expected.ids[row] + " field " + field,
+                    expected.get(row, field), actual.get(row, field));
+            }
+        }
+    }
+}